@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH results written with <code>-rf json</code>, e.g. a stored baseline and the results of
+ * the current build, and exits with status 1 when a benchmark regressed more than the tolerance.
+ *
+ * <pre>java -cp benchmarks.jar com.shengchen.checkstyle.benchmark.BaselineComparator
+ *     baseline.json current.json [tolerance percent, default 10]</pre>
+ */
+public final class BaselineComparator {
+
+    private static final double DEFAULT_TOLERANCE_PERCENT = 10;
+
+    private BaselineComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.json> <current.json> [tolerance percent]");
+            System.exit(2);
+        }
+        final double tolerance = (args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE_PERCENT) / 100;
+        final Map<String, Score> baseline = readScores(args[0]);
+        final Map<String, Score> current = readScores(args[1]);
+        boolean regressed = false;
+        for (final Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score before = baseline.get(entry.getKey());
+            final Score after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-100s %12.3f %s (new)%n", entry.getKey(), after.value, after.unit);
+                continue;
+            }
+            final double change = (after.value - before.value) / before.value;
+            // Time per operation regresses when growing, throughput when shrinking
+            final boolean worse = after.higherIsBetter ? change < -tolerance : change > tolerance;
+            regressed |= worse;
+            System.out.printf("%-100s %12.3f -> %12.3f %s %+7.1f%%%s%n", entry.getKey(), before.value, after.value,
+                after.unit, change * 100, worse ? " REGRESSION" : "");
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, Score> readScores(String path) throws IOException {
+        final Map<String, Score> scores = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path))) {
+            final JsonArray results = JsonParser.parseReader(reader).getAsJsonArray();
+            for (final JsonElement element : results) {
+                final JsonObject result = element.getAsJsonObject();
+                final JsonObject metric = result.getAsJsonObject("primaryMetric");
+                scores.put(getKey(result), new Score(
+                    metric.get("score").getAsDouble(),
+                    metric.get("scoreUnit").getAsString(),
+                    result.get("mode").getAsString().equals("thrpt")
+                ));
+            }
+        }
+        return scores;
+    }
+
+    private static String getKey(JsonObject result) {
+        final StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+        if (result.has("params")) {
+            final Map<String, String> params = new TreeMap<>();
+            for (final Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+                params.put(param.getKey(), param.getValue().getAsString());
+            }
+            key.append(params);
+        }
+        return key.toString();
+    }
+
+    private static final class Score {
+        private final double value;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        Score(double value, String unit, boolean higherIsBetter) {
+            this.value = value;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+}
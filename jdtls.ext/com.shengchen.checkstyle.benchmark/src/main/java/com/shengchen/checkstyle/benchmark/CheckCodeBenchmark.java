@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.benchmark;
+
+import com.shengchen.checkstyle.checker.CheckerService;
+import com.shengchen.checkstyle.runner.api.CheckResult;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CheckerService#checkCode} over generated sources of varying size and violation density,
+ * or over a real project given with <code>-p corpus=/path/to/sources</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CheckCodeBenchmark {
+
+    @Param({""})
+    public String corpus;
+
+    @Param({"/google_checks.xml"})
+    public String configuration;
+
+    @Param({"20"})
+    public int fileCount;
+
+    @Param({"200", "2000", "10000"})
+    public int lines;
+
+    @Param({"0.1", "0.9"})
+    public double violationDensity;
+
+    @Param({"1"})
+    public int parallelism;
+
+    private Path directory;
+    private List<File> files;
+    private CheckerService checkerService;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (corpus.isEmpty()) {
+            directory = Files.createTempDirectory("checkstyle-benchmark");
+            files = Corpus.generate(directory, fileCount, lines, violationDensity);
+        } else {
+            files = Corpus.load(corpus);
+        }
+        checkerService = new CheckerService();
+        checkerService.initialize();
+        checkerService.setConfiguration(Configurations.of(configuration, parallelism));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        checkerService.dispose();
+        if (directory != null) {
+            Corpus.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public Map<String, List<CheckResult>> checkCode() throws Exception {
+        return checkerService.checkCode(files, "UTF-8", null);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+final class Configurations {
+
+    private Configurations() {
+    }
+
+    /**
+     * Creates the configuration passed to the checker service by setConfiguration. No storage path is
+     * given, so the results are never served from the cache.
+     */
+    static Map<String, Object> of(String path, int parallelism) {
+        final Map<String, Object> config = new HashMap<>();
+        config.put("path", path);
+        config.put("properties", new HashMap<String, String>());
+        config.put("parallelism", (double) parallelism); // Numbers arrive as Double from JSON
+        return config;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sources to benchmark against, either generated or read from a real project.
+ */
+public final class Corpus {
+
+    private static final String HEADER = readTemplate("Header.txt");
+    private static final String DIRTY_UNIT = readTemplate("DirtyUnit.txt");
+    private static final String CLEAN_UNIT = readTemplate("CleanUnit.txt");
+
+    private Corpus() {
+    }
+
+    /**
+     * Generates a source of about the given number of lines. The violation density is the share of units
+     * violating the fixable checks, between 0 and 1, the other units comply with the bundled configurations.
+     */
+    public static String generateSource(String className, int lines, double violationDensity) {
+        final StringBuilder source = new StringBuilder(String.format(HEADER, className));
+        int lineCount = countLines(source);
+        for (int i = 0; lineCount < lines || i == 0; i++) {
+            // Spread the violating units evenly over the source
+            final boolean dirty = Math.floor((i + 1) * violationDensity) > Math.floor(i * violationDensity);
+            final String unit = String.format(dirty ? DIRTY_UNIT : CLEAN_UNIT, i);
+            source.append(unit);
+            lineCount += countLines(unit);
+        }
+        return source.append("}\n").toString();
+    }
+
+    public static List<File> generate(Path directory, int fileCount, int lines, double violationDensity)
+            throws IOException {
+        final Path packageDirectory = Files.createDirectories(directory.resolve("benchmark"));
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            final String className = "Generated" + i;
+            final Path file = packageDirectory.resolve(className + ".java");
+            Files.write(file, generateSource(className, lines, violationDensity).getBytes(StandardCharsets.UTF_8));
+            files.add(file.toFile());
+        }
+        return files;
+    }
+
+    /**
+     * Lists the Java files of a real project to check.
+     */
+    public static List<File> load(String directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(Paths.get(directory))) {
+            return paths.filter(path -> path.toString().endsWith(".java"))
+                .map(Path::toFile)
+                .collect(Collectors.toList());
+        }
+    }
+
+    public static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static int countLines(CharSequence text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String readTemplate(String name) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/templates/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read template " + name, e);
+        }
+    }
+}
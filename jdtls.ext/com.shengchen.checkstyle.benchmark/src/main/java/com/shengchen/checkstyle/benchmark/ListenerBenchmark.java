@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.benchmark;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+import com.puppycrawl.tools.checkstyle.api.Violation;
+import com.puppycrawl.tools.checkstyle.checks.coding.FinalLocalVariableCheck;
+import com.shengchen.checkstyle.checker.CheckerListener;
+import com.shengchen.checkstyle.runner.api.CheckResult;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link CheckerListener} when a file floods it with violations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListenerBenchmark {
+
+    private static final String FILE_NAME = new File("Flood.java").getAbsolutePath();
+
+    @Param({"100", "10000", "100000"})
+    public int violations;
+
+    private AuditEvent fileEvent;
+    private AuditEvent[] errorEvents;
+    private List<File> files;
+
+    @Setup
+    public void setUp() {
+        fileEvent = new AuditEvent(this, FILE_NAME);
+        errorEvents = new AuditEvent[violations];
+        for (int i = 0; i < violations; i++) {
+            errorEvents[i] = new AuditEvent(this, FILE_NAME, new Violation(
+                i + 1,
+                9,
+                "com.puppycrawl.tools.checkstyle.checks.coding.messages",
+                "final.variable",
+                new Object[] {"value"},
+                SeverityLevel.WARNING,
+                null,
+                FinalLocalVariableCheck.class,
+                null
+            ));
+        }
+        files = Collections.singletonList(new File(FILE_NAME));
+    }
+
+    @Benchmark
+    public Map<String, List<CheckResult>> flood() {
+        final CheckerListener listener = new CheckerListener();
+        listener.auditStarted(fileEvent);
+        listener.fileStarted(fileEvent);
+        for (final AuditEvent errorEvent : errorEvents) {
+            listener.addError(errorEvent);
+        }
+        listener.fileFinished(fileEvent);
+        listener.auditFinished(fileEvent);
+        return listener.getResult(files);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.benchmark;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.shengchen.checkstyle.checker.CheckerListener;
+import com.shengchen.checkstyle.quickfix.BaseQuickFix;
+import com.shengchen.checkstyle.quickfix.CompositeQuickFixVisitor;
+import com.shengchen.checkstyle.quickfix.QuickFixService;
+import com.shengchen.checkstyle.runner.api.CheckResult;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.text.edits.TextEdit;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures fixing all violations of a {@link com.shengchen.checkstyle.quickfix.FixableCheck} in a file, the
+ * way {@link QuickFixService#quickFix} does once the compilation unit is resolved. The violations are
+ * found by running the check itself over a generated source.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QuickFixBenchmark {
+
+    @Param({
+        "NeedBracesCheck", "AvoidNestedBlocksCheck", "FinalLocalVariableCheck", "DefaultComesLastCheck",
+        "EmptyStatementCheck", "MissingSwitchDefaultCheck", "ExplicitInitializationCheck", "RequireThisCheck",
+        "SimplifyBooleanReturnCheck", "StringLiteralEqualityCheck", "MultipleVariableDeclarationsCheck",
+        "DesignForExtensionCheck", "FinalClassCheck", "ModifierOrderCheck", "RedundantModifierCheck",
+        "FinalParametersCheck", "UncommentedMainCheck", "UpperEllCheck", "ArrayTypeStyleCheck"
+    })
+    public String sourceName;
+
+    @Param({"1000", "5000"})
+    public int lines;
+
+    private String source;
+    private int[] offsets;
+    private BaseQuickFix quickFix;
+    private Map<String, String> compilerOptions;
+
+    @Setup
+    public void setUp() throws Exception {
+        source = Corpus.generateSource("Fixable", lines, 1);
+        quickFix = new QuickFixService().getQuickFix(sourceName);
+        offsets = findViolationOffsets();
+        compilerOptions = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_17, compilerOptions);
+    }
+
+    @Benchmark
+    public TextEdit fixAll() throws Exception {
+        final Document document = new Document(source);
+        final ASTParser astParser = ASTParser.newParser(AST.getJLSLatest());
+        astParser.setKind(ASTParser.K_COMPILATION_UNIT);
+        astParser.setCompilerOptions(compilerOptions);
+        astParser.setSource(source.toCharArray());
+        final CompilationUnit astRoot = (CompilationUnit) astParser.createAST(null);
+        astRoot.recordModifications();
+        final CompositeQuickFixVisitor visitor = new CompositeQuickFixVisitor();
+        for (final int offset : offsets) {
+            final IRegion lineInfo = document.getLineInformationOfOffset(offset);
+            visitor.add(quickFix.getCorrectingASTVisitor(lineInfo, offset), lineInfo);
+        }
+        astRoot.accept(visitor);
+        return astRoot.rewrite(document, null);
+    }
+
+    private int[] findViolationOffsets() throws Exception {
+        final Path directory = Files.createTempDirectory("checkstyle-benchmark");
+        try {
+            final File file = directory.resolve("Fixable.java").toFile();
+            Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+            final List<CheckResult> results = check(file);
+            if (results == null || results.isEmpty()) {
+                throw new IllegalStateException("The generated source does not violate " + sourceName);
+            }
+            // Offsets are computed the way the client does from the diagnostics
+            final Document document = new Document(source);
+            final List<Integer> violationOffsets = new ArrayList<>();
+            for (final CheckResult result : results) {
+                final int line = Math.max(result.getLine() - 1, 0);
+                violationOffsets.add(document.getLineOffset(line) + Math.max(result.getColumn() - 1, 0));
+            }
+            return violationOffsets.stream().mapToInt(Integer::intValue).toArray();
+        } finally {
+            Corpus.delete(directory);
+        }
+    }
+
+    private List<CheckResult> check(File file) throws Exception {
+        final DefaultConfiguration treeWalker = new DefaultConfiguration(TreeWalker.class.getName());
+        final DefaultConfiguration checkConfiguration = new DefaultConfiguration(sourceName);
+        if (sourceName.equals("RequireThisCheck")) { // Only overlapping names are reported by default
+            checkConfiguration.addProperty("validateOnlyOverlapping", "false");
+        }
+        treeWalker.addChild(checkConfiguration);
+        final DefaultConfiguration configuration = new DefaultConfiguration("Checker");
+        configuration.addChild(treeWalker);
+
+        final CheckerListener listener = new CheckerListener();
+        final Checker checker = new Checker();
+        checker.setModuleClassLoader(Checker.class.getClassLoader());
+        checker.configure(configuration);
+        checker.addListener(listener);
+        try {
+            checker.process(Collections.singletonList(file));
+        } finally {
+            checker.destroy();
+        }
+        return listener.getResult(Collections.singletonList(file)).get(file.getAbsolutePath());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Reads the parts of an {@link AuditEvent} whose API differs between Checkstyle versions. The loaded API
+ * is probed once per class loader, i.e. once per loaded Checkstyle version.
+ */
+public final class AuditEventAdapter {
+
+    // Bound for Checkstyle versions <= v8.41.1 only, null when Violation is available
+    private static final MethodHandle LEGACY_COLUMN_CHAR_INDEX = bindLegacyColumnCharIndex();
+
+    private AuditEventAdapter() {
+    }
+
+    public static int getColumnCharIndex(AuditEvent event) {
+        if (LEGACY_COLUMN_CHAR_INDEX == null) {
+            return event.getViolation().getColumnCharIndex();
+        }
+        try {
+            return (int) LEGACY_COLUMN_CHAR_INDEX.invokeExact(event);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle bindLegacyColumnCharIndex() {
+        try {
+            // Try to use LocalizedMessage for Checkstyle versions <= v8.41.1
+            final Method getLocalizedMessage = AuditEvent.class.getMethod("getLocalizedMessage");
+            final Method getColumnCharIndex = getLocalizedMessage.getReturnType().getMethod("getColumnCharIndex");
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            return MethodHandles.filterReturnValue(
+                lookup.unreflect(getLocalizedMessage),
+                lookup.unreflect(getColumnCharIndex)
+            ).asType(MethodType.methodType(int.class, AuditEvent.class));
+        } catch (NoSuchMethodException | SecurityException | IllegalAccessException e) {
+            // If LocalizedMessage does not exist, Checkstyle version >= v8.42 is used
+            return null;
+        }
+    }
+}
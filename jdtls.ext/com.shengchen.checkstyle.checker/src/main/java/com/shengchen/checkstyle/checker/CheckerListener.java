@@ -21,18 +21,38 @@ import com.puppycrawl.tools.checkstyle.api.AuditEvent;
 import com.puppycrawl.tools.checkstyle.api.AuditListener;
 import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
 import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
 
 public class CheckerListener implements AuditListener {
 
+    // Errors of the current audit run only, handed off by getResult
     private Map<String, List<CheckResult>> fileErrors = new HashMap<>();
+    private BiConsumer<String, List<CheckResult>> fileResultHandler = null;
+    private ICheckProgressMonitor monitor = null;
+
+    /**
+     * Sets the handler receiving the results of each file as soon as the file is audited. The listener
+     * does not keep the results of the handled files.
+     */
+    public void setFileResultHandler(BiConsumer<String, List<CheckResult>> handler) {
+        fileResultHandler = handler;
+    }
+
+    /**
+     * Sets the monitor to report the checked files to. The audit is aborted with a
+     * {@link CancellationException} before starting the next file once the monitor is canceled.
+     */
+    public void setMonitor(ICheckProgressMonitor monitor) {
+        this.monitor = monitor;
+    }
 
     @Override
     public void addError(AuditEvent error) {
@@ -40,9 +60,10 @@ public class CheckerListener implements AuditListener {
         if (severity.equals(SeverityLevel.IGNORE)) {
             return;
         }
-        fileErrors.get(error.getFileName()).add(new CheckResult(
+        // Errors may also be fired for files which are not started, e.g. by FileSetCheck.finishProcessing
+        fileErrors.computeIfAbsent(error.getFileName(), fileName -> new ArrayList<>()).add(new CheckResult(
             error.getLine(),
-            this.backCompatColumnIndex(error) + 1,
+            AuditEventAdapter.getColumnCharIndex(error) + 1,
             error.getMessage(),
             severity.toString().toLowerCase(),
             error.getSourceName().substring(error.getSourceName().lastIndexOf('.') + 1)));
@@ -50,17 +71,25 @@ public class CheckerListener implements AuditListener {
 
     @Override
     public void fileStarted(AuditEvent event) {
+        if (monitor != null && monitor.isCanceled()) {
+            throw new CancellationException("Check canceled before " + event.getFileName());
+        }
         fileErrors.put(event.getFileName(), new ArrayList<>());
     }
 
     @Override
-    public void fileFinished(AuditEvent arg0) {
-        return;
+    public void fileFinished(AuditEvent event) {
+        if (fileResultHandler != null) {
+            fileResultHandler.accept(event.getFileName(), fileErrors.remove(event.getFileName()));
+        }
+        if (monitor != null) {
+            monitor.fileChecked(event.getFileName());
+        }
     }
 
     @Override
     public void auditStarted(AuditEvent arg0) {
-        return;
+        fileErrors = new HashMap<>(); // Drop what an aborted run may have left
     }
 
     @Override
@@ -73,32 +102,17 @@ public class CheckerListener implements AuditListener {
         return;
     }
 
+    /**
+     * Hands off the results of the last audit run to the caller. The listener does not keep any result
+     * afterwards, so it does not grow with every file ever checked.
+     */
     public Map<String, List<CheckResult>> getResult(List<File> filesToCheck) {
         final Map<String, List<CheckResult>> result = new HashMap<>();
         for (final File file: filesToCheck) {
             final String fileName = file.getAbsolutePath();
-            result.put(fileName, fileErrors.get(fileName));
+            result.put(fileName, fileErrors.remove(fileName));
         }
+        fileErrors = new HashMap<>();
         return result;
     }
-
-    private int backCompatColumnIndex(final AuditEvent error) {
-        // To keep backwards compatibility:
-        try {
-            // Try to use LocalizedMessage for Checkstyle versions <= v8.41.1
-            final Method getLocalizedMessage = error.getClass().getMethod("getLocalizedMessage");
-            final Object localizedMessage = getLocalizedMessage.invoke(error);
-            final Method getColumnCharIndex = localizedMessage.getClass().getMethod("getColumnCharIndex");
-
-            return (int) getColumnCharIndex.invoke(localizedMessage);
-        } catch (NoSuchMethodException |
-            SecurityException |
-            IllegalAccessException |
-            IllegalArgumentException |
-            InvocationTargetException e1
-        ) {
-            // If LocalizedMessage does not exist, Checkstyle version >= v8.42 is used
-            return error.getViolation().getColumnCharIndex();
-        }
-    }
 }
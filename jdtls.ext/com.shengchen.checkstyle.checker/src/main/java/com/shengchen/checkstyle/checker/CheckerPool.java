@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+public class CheckerPool {
+
+    // Number of files a single task audits before it is worth splitting further
+    static final int CHUNK_SIZE = 16;
+
+    private final Configuration configuration;
+    private final int size;
+    // Shared by the pools of all configurations of the service, it is not owned by this pool
+    private final ForkJoinPool executor;
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * Creates a pool of at most size checkers, auditing on the threads of the given executor. Tasks of the executor
+     * wait for a checker to be released when there are more threads than checkers.
+     */
+    public CheckerPool(Configuration configuration, int size, ForkJoinPool executor) {
+        this.configuration = configuration;
+        this.size = size;
+        this.executor = executor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Map<String, List<CheckResult>> checkCode(
+        List<File> filesToCheck,
+        String charset,
+        ContentChecker.TextReader reader,
+        BiConsumer<String, List<CheckResult>> handler,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        try {
+            return executor.invoke(new CheckTask(filesToCheck, charset, reader, handler, monitor));
+        } catch (CompletionException e) { // Unwrap the checked exception thrown by a worker
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    public void dispose() {
+        synchronized (workers) {
+            for (final Worker worker : workers) {
+                worker.dispose();
+            }
+            workers.clear();
+        }
+        idleWorkers.clear();
+    }
+
+    private Worker borrow() throws CheckstyleException, InterruptedException {
+        final Worker idle = idleWorkers.poll();
+        if (idle != null) {
+            return idle;
+        }
+        synchronized (workers) {
+            if (workers.size() < size) { // Lazily configure up to size checkers
+                final Worker worker = new Worker(configuration);
+                workers.add(worker);
+                return worker;
+            }
+        }
+        return idleWorkers.take();
+    }
+
+    private void release(Worker worker) {
+        idleWorkers.offer(worker);
+    }
+
+    private static final class Worker {
+        private final ContentChecker checker;
+        private final CheckerListener listener;
+
+        Worker(Configuration configuration) throws CheckstyleException {
+            listener = new CheckerListener();
+            checker = CheckerService.createChecker(listener);
+            checker.configure(configuration);
+        }
+
+        Map<String, List<CheckResult>> process(
+            List<File> filesToCheck,
+            String charset,
+            ContentChecker.TextReader reader,
+            BiConsumer<String, List<CheckResult>> handler,
+            ICheckProgressMonitor monitor
+        ) throws Exception {
+            checker.setCharset(charset);
+            listener.setFileResultHandler(handler);
+            listener.setMonitor(monitor);
+            try {
+                checker.processTexts(filesToCheck, charset, reader);
+            } finally {
+                listener.setFileResultHandler(null);
+                listener.setMonitor(null);
+            }
+            return listener.getResult(filesToCheck);
+        }
+
+        void dispose() {
+            checker.removeListener(listener);
+            checker.destroy();
+        }
+    }
+
+    private final class CheckTask extends RecursiveTask<Map<String, List<CheckResult>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> filesToCheck;
+        private final String charset;
+        private final ContentChecker.TextReader reader;
+        private final BiConsumer<String, List<CheckResult>> handler;
+        private final ICheckProgressMonitor monitor;
+
+        CheckTask(
+            List<File> filesToCheck,
+            String charset,
+            ContentChecker.TextReader reader,
+            BiConsumer<String, List<CheckResult>> handler,
+            ICheckProgressMonitor monitor
+        ) {
+            this.filesToCheck = filesToCheck;
+            this.charset = charset;
+            this.reader = reader;
+            this.handler = handler;
+            this.monitor = monitor;
+        }
+
+        @Override
+        protected Map<String, List<CheckResult>> compute() {
+            if (filesToCheck.size() <= CHUNK_SIZE) {
+                return processChunk();
+            }
+            // Split in halves so idle workers can steal the pending part
+            final int middle = filesToCheck.size() / 2;
+            final CheckTask left = new CheckTask(filesToCheck.subList(0, middle), charset, reader, handler, monitor);
+            final CheckTask right = new CheckTask(
+                filesToCheck.subList(middle, filesToCheck.size()),
+                charset,
+                reader,
+                handler,
+                monitor
+            );
+            left.fork();
+            final Map<String, List<CheckResult>> result = new HashMap<>(right.compute());
+            result.putAll(left.join());
+            return result;
+        }
+
+        private Map<String, List<CheckResult>> processChunk() {
+            Worker worker = null;
+            try {
+                if (monitor != null && monitor.isCanceled()) { // Skip the pending chunks at once
+                    throw new CancellationException();
+                }
+                worker = borrow();
+                return worker.process(filesToCheck, charset, reader, handler, monitor);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                if (worker != null) {
+                    release(worker);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.JavaParser;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractCheck;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.FileContents;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.shengchen.checkstyle.checker.ProfilingModuleFactory.ProfiledModule;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
+import com.shengchen.checkstyle.runner.api.ModuleProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Profiles the modules of a configuration on a set of files, measuring the cumulative time, the number of files
+ * processed and the number of violations reported by each check and file set check. Each check is given a tree
+ * walker of its own, so it is timed apart from the others. The Java files are parsed by each of these tree walkers,
+ * so the parsing is measured once per file, reported on its own, and left out of the time of the checks.
+ * <p>
+ * The files are audited by a checker of its own, which does not apply the filters of the checker, so the violations
+ * are counted as reported by the modules and the filters of their tree walker.
+ * </p>
+ */
+public class CheckerProfiler {
+
+    // Name the parsing of the Java files is reported under
+    private static final String PARSING = "(Java parsing)";
+
+    public static List<ModuleProfile> profile(
+        Configuration configuration,
+        Map<String, List<File>> filesByCharset,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        final ClassLoader moduleClassLoader = Checker.class.getClassLoader();
+        final ProfilingModuleFactory factory = new ProfilingModuleFactory(moduleClassLoader);
+        final Checker checker = new Checker();
+        checker.setBasedir(null);
+        checker.setModuleClassLoader(moduleClassLoader);
+        checker.setModuleFactory(factory);
+        checker.configure(splitTreeWalkers(configuration, factory));
+
+        final List<ProfiledModule> modules = factory.getFileSetChecks();
+        long parsingNanos = 0;
+        int parsedFiles = 0;
+        try {
+            for (final Map.Entry<String, List<File>> group : filesByCharset.entrySet()) {
+                for (final ProfiledModule module : modules) {
+                    module.getFileSetCheck().beginProcessing(group.getKey());
+                }
+                for (final File file : group.getValue()) {
+                    if (monitor.isCanceled()) {
+                        throw new CancellationException("Profiling canceled before " + file.getAbsolutePath());
+                    }
+                    final FileText fileText;
+                    long fileParsingNanos = 0;
+                    try {
+                        fileText = new FileText(file.getAbsoluteFile(), group.getKey());
+                        if (file.getName().endsWith(".java")) {
+                            final long start = System.nanoTime();
+                            JavaParser.parse(new FileContents(fileText));
+                            fileParsingNanos = System.nanoTime() - start;
+                        }
+                    } catch (IOException | CheckstyleException e) { // Unreadable or not parsable, not worth profiling
+                        continue;
+                    }
+                    parsingNanos += fileParsingNanos;
+                    parsedFiles++;
+                    for (final ProfiledModule module : modules) {
+                        final long start = System.nanoTime();
+                        final int violations = module.getFileSetCheck().process(file, fileText).size();
+                        final long elapsed = System.nanoTime() - start;
+                        module.record(
+                            module.isTreeWalker() ? Math.max(0, elapsed - fileParsingNanos) : elapsed,
+                            violations
+                        );
+                    }
+                    monitor.fileChecked(file.getAbsolutePath());
+                }
+                for (final ProfiledModule module : modules) {
+                    module.getFileSetCheck().finishProcessing();
+                }
+            }
+        } finally {
+            checker.destroy();
+        }
+
+        final List<ModuleProfile> profiles = new ArrayList<>();
+        profiles.add(new ModuleProfile(PARSING, parsingNanos / 1e6, parsedFiles, 0));
+        for (final ProfiledModule module : modules) {
+            profiles.add(new ModuleProfile(
+                module.getName(),
+                module.getNanos() / 1e6,
+                module.getInvocations(),
+                module.getViolations()
+            ));
+        }
+        profiles.sort(Comparator.comparingDouble(ModuleProfile::getTime).reversed());
+        return profiles;
+    }
+
+    /**
+     * Returns a copy of the configuration where each check of a tree walker is moved to a tree walker of its own,
+     * along with the other children of the tree walker, e.g. its filters.
+     */
+    private static Configuration splitTreeWalkers(
+        Configuration configuration,
+        ProfilingModuleFactory factory
+    ) throws CheckstyleException {
+        final DefaultConfiguration root = copyOf(configuration);
+        for (final Configuration child : configuration.getChildren()) {
+            if (!(factory.createUnrecordedModule(child.getName()) instanceof TreeWalker)) {
+                root.addChild(child);
+                continue;
+            }
+            final List<Configuration> checks = new ArrayList<>();
+            final List<Configuration> others = new ArrayList<>();
+            for (final Configuration grandChild : child.getChildren()) {
+                if (factory.createUnrecordedModule(grandChild.getName()) instanceof AbstractCheck) {
+                    checks.add(grandChild);
+                } else {
+                    others.add(grandChild);
+                }
+            }
+            for (final Configuration check : checks) {
+                final DefaultConfiguration treeWalker = copyOf(child);
+                others.forEach(treeWalker::addChild);
+                treeWalker.addChild(check);
+                root.addChild(treeWalker);
+            }
+        }
+        return root;
+    }
+
+    private static DefaultConfiguration copyOf(Configuration configuration) throws CheckstyleException {
+        // The children are left to the caller
+        final DefaultConfiguration copy = new DefaultConfiguration(configuration.getName());
+        for (final String name : configuration.getPropertyNames()) {
+            copy.addProperty(name, configuration.getProperty(name));
+        }
+        configuration.getMessages().forEach(copy::addMessage);
+        return copy;
+    }
+}
@@ -22,39 +22,93 @@ import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
 import com.puppycrawl.tools.checkstyle.Main;
 import com.puppycrawl.tools.checkstyle.PropertiesExpander;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
 import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
 import com.shengchen.checkstyle.runner.api.ICheckerService;
+import com.shengchen.checkstyle.runner.api.IResultPublisher;
+import com.shengchen.checkstyle.runner.api.ModuleProfile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 public class CheckerService implements ICheckerService {
 
-    private Checker checker = null;
+    // Number of recently used configurations kept ready to be switched back to
+    private static final int MAX_CONFIGURED_CHECKERS = 4;
+    // Passes over the warm-up corpus, enough for the hot paths of the checks to get compiled
+    private static final int WARM_UP_PASSES = 20;
+    private static final String WARM_UP_CORPUS = "WarmUpCorpus.txt";
+
+    private Map<String, ConfiguredChecker> configuredCheckers = null;
+    // Parts of the configured checker in use
+    private ConfiguredChecker activeChecker = null;
+    private ContentChecker checker = null;
     private CheckerListener listener = null;
+    private CheckerPool checkerPool = null;
+    private ResultCache resultCache = null;
+    // Checks may run concurrently, while the single checker audits one batch at a time
+    private final Object checkerLock = new Object();
+    // Shared by the configurations, so switching to another one does not read the files again
+    private final FileTextCache textCache = new FileTextCache();
+    // Threads of the checker pools of all configurations, sized once by the number of processors
+    private ForkJoinPool executor = null;
 
-    public void initialize() {
-        checker = new Checker();
-        listener = new CheckerListener();
+    static ContentChecker createChecker(CheckerListener listener) {
+        final ContentChecker checker = new ContentChecker(listener);
         // reset the basedir if it is set so it won't get into the plugins way
         // of determining workspace resources from checkstyle reported file names, see
         // https://sourceforge.net/tracker/?func=detail&aid=2880044&group_id=80344&atid=559497
         checker.setBasedir(null);
         checker.setModuleClassLoader(Checker.class.getClassLoader());
-        checker.addListener(listener);
+        return checker;
+    }
+
+    public void initialize() {
+        executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        configuredCheckers = new LinkedHashMap<String, ConfiguredChecker>(16, 0.75f, true) { // Access order for LRU
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConfiguredChecker> eldest) {
+                if (size() > MAX_CONFIGURED_CHECKERS) {
+                    eldest.getValue().dispose();
+                    return true;
+                }
+                return false;
+            }
+        };
     }
 
     public void dispose() {
-        if (checker != null) {
-            if (listener != null) {
-                checker.removeListener(listener);
-                listener = null;
+        if (configuredCheckers != null) { // Each checker saves its results on disposal
+            if (activeChecker != null && !configuredCheckers.containsValue(activeChecker)) {
+                activeChecker.dispose(); // Never reused, e.g. referring to a remote resource
             }
-            checker.destroy();
-            checker = null;
+            for (final ConfiguredChecker configured : configuredCheckers.values()) {
+                configured.dispose();
+            }
+            configuredCheckers = null;
+        }
+        activate(null);
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
         }
     }
 
@@ -62,21 +116,375 @@ public class CheckerService implements ICheckerService {
     public void setConfiguration(Map<String, Object> config) throws IOException, CheckstyleException {
         final String configurationFsPath = (String) config.get("path");
         final Map<String, String> properties = (Map<String, String>) config.get("properties");
-        final Properties checkstyleProperties = new Properties();
-        checkstyleProperties.putAll(properties);
-        checker.configure(ConfigurationLoader.loadConfiguration(
-            configurationFsPath,
-            new PropertiesExpander(checkstyleProperties)
-        ));
+        final List<String> modules = config.get("modules") != null ?
+            (List<String>) config.get("modules") : Collections.emptyList();
+        final int parallelism = getParallelism(config);
+        final String fingerprint = ResultCache.fingerprint(configurationFsPath, properties, modules, getVersion());
+        final String key = fingerprint + ":" + parallelism;
+        if (resultCache != null) { // Persist what the previous configuration learned before switching
+            resultCache.save();
+        }
+        ConfiguredChecker configured = fingerprint != null ? configuredCheckers.get(key) : null;
+        if (configured != null && configured.references.isChanged()) { // E.g. its suppressions file was edited
+            configuredCheckers.remove(key);
+            if (configured != activeChecker) { // The active one is disposed once replaced
+                configured.dispose();
+            }
+            configured = null;
+        }
+        if (configured == null) { // Only parse the configuration and instantiate its modules when it changed
+            final Properties checkstyleProperties = new Properties();
+            checkstyleProperties.putAll(properties);
+            final Configuration configuration = ConfigurationLoader.loadConfiguration(
+                configurationFsPath,
+                new PropertiesExpander(checkstyleProperties)
+            );
+            final String storagePath = (String) config.get("storagePath");
+            final ConfigurationReferences references = ConfigurationReferences.collect(configuration);
+            // Results are only cached when every file the configuration is loaded from can be fingerprinted
+            final String resultFingerprint = fingerprint != null ? references.fingerprint(fingerprint) : null;
+            configured = new ConfiguredChecker(
+                configuration,
+                references,
+                parallelism > 1 ? new CheckerPool(configuration, parallelism, executor) : null,
+                storagePath != null && resultFingerprint != null ?
+                    new ResultCache(Paths.get(storagePath), resultFingerprint) : null
+            );
+            if (fingerprint != null) { // A remote configuration may change at any time, it is loaded again
+                configuredCheckers.put(key, configured);
+            }
+        }
+        final ConfiguredChecker previous = activeChecker;
+        activate(configured);
+        if (previous != null && previous != configured && !configuredCheckers.containsValue(previous)) {
+            previous.dispose(); // Stale or never reused, nothing refers to it anymore
+        }
     }
 
-    public String getVersion() throws Exception {
+    public String getVersion() {
         return Main.class.getPackage().getImplementationVersion();
     }
 
-    public Map<String, List<CheckResult>> checkCode(List<File> filesToCheck, String charset) throws Exception {
-        checker.setCharset(charset);
-        checker.process(filesToCheck);
-        return listener.getResult(filesToCheck);
+    public Map<String, List<CheckResult>> checkCode(
+        List<File> filesToCheck,
+        String charset,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        return checkWithCache(
+            filesToCheck,
+            file -> ResultCache.hash(file, charset),
+            (files, contentHashes, handler) -> audit(files, charset, contentHashes, handler, monitor),
+            null,
+            monitor
+        );
+    }
+
+    public void checkCodeStreaming(
+        List<File> filesToCheck,
+        String charset,
+        IResultPublisher publisher,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        final ResultStreamer streamer = new ResultStreamer(publisher);
+        checkWithCache(
+            filesToCheck,
+            file -> ResultCache.hash(file, charset),
+            (files, contentHashes, handler) -> audit(files, charset, contentHashes, handler, monitor),
+            streamer,
+            monitor
+        );
+        streamer.flush();
+    }
+
+    public Map<String, List<CheckResult>> checkContents(
+        Map<String, String> contents,
+        String charset,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        final Map<File, String> fileContents = new LinkedHashMap<>();
+        contents.forEach((path, content) -> fileContents.put(new File(path), content));
+        return checkWithCache(
+            new ArrayList<>(fileContents.keySet()),
+            file -> ResultCache.hash(fileContents.get(file)),
+            (files, contentHashes, handler) ->
+                auditContents(files, fileContents, charset, contentHashes, handler, monitor),
+            null,
+            monitor
+        );
+    }
+
+    /**
+     * Audits a bundled corpus with the checker in use and discards the results, so the classes of the checks are
+     * loaded and their hot paths compiled before the first check of the client. A configured checker is only
+     * warmed up once, and the warm-up stops with a {@link CancellationException} once the monitor is canceled.
+     */
+    public void warmUp(ICheckProgressMonitor monitor) throws Exception {
+        final ConfiguredChecker configured = activeChecker;
+        if (configured == null || configured.warmedUp) {
+            return;
+        }
+        final String corpus;
+        try (InputStream stream = CheckerService.class.getResourceAsStream(WARM_UP_CORPUS)) {
+            corpus = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        final File file = new File("WarmUp.java"); // Never read, and its results are never cached
+        final Map<File, String> contents = Collections.singletonMap(file, corpus);
+        for (int i = 0; i < WARM_UP_PASSES; i++) { // A pass per audit, so a check of the client never waits long
+            if (monitor.isCanceled()) {
+                throw new CancellationException("Warm-up canceled");
+            }
+            runAudit(
+                (files, contentHashes, handler) ->
+                    auditContents(files, contents, StandardCharsets.UTF_8.name(), contentHashes, handler, monitor),
+                Collections.singletonList(file),
+                Collections.emptyMap(),
+                null
+            );
+        }
+        configured.warmedUp = true;
+    }
+
+    /**
+     * Profiles the modules of the configuration in use on the given files. The files are audited by a checker of the
+     * profiler, their results are neither cached nor reported.
+     */
+    public List<ModuleProfile> profileCode(
+        Map<String, List<File>> filesByCharset,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        final ConfiguredChecker configured = activeChecker;
+        if (configured == null) {
+            return Collections.emptyList();
+        }
+        return CheckerProfiler.profile(configured.configuration, filesByCharset, monitor);
+    }
+
+    /**
+     * Returns the results cached for the configuration in use, as they were when the files were last audited.
+     * A check of the files returns the very same result lists for those whose content did not change since.
+     */
+    public Map<String, List<CheckResult>> getCachedResults() {
+        return resultCache != null ? resultCache.getAll() : Collections.emptyMap();
+    }
+
+    public void invalidateResults(List<File> files) {
+        if (resultCache != null) {
+            for (final File file : files) {
+                resultCache.invalidate(file.getAbsolutePath());
+            }
+            resultCache.saveIfNeeded();
+        }
+    }
+
+    /**
+     * Checks the files, only auditing those whose content changed since they were cached. When a streamer
+     * is given, the results of each file are streamed as soon as they are known and nothing is returned.
+     */
+    private Map<String, List<CheckResult>> checkWithCache(
+        List<File> filesToCheck,
+        Function<File, String> hasher,
+        Auditor auditor,
+        ResultStreamer streamer,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        final Map<String, List<CheckResult>> result = new HashMap<>();
+        final Map<String, String> contentHashes = new HashMap<>();
+        final List<File> filesToAudit;
+        if (resultCache == null) {
+            filesToAudit = filesToCheck;
+        } else {
+            filesToAudit = new ArrayList<>();
+            for (final File file : filesToCheck) { // Only audit the files whose content changed since last run
+                if (monitor != null && monitor.isCanceled()) { // Hashing a large batch reads every file
+                    throw new CancellationException("Check canceled");
+                }
+                final String fileName = file.getAbsolutePath();
+                final String contentHash = hasher.apply(file);
+                final List<CheckResult> cached = contentHash != null ? resultCache.get(fileName, contentHash) : null;
+                if (cached == null) {
+                    contentHashes.put(fileName, contentHash);
+                    filesToAudit.add(file);
+                } else if (streamer != null) {
+                    streamer.add(fileName, cached);
+                } else {
+                    result.put(fileName, cached);
+                }
+            }
+        }
+        if (filesToAudit.isEmpty()) {
+            return result;
+        }
+        final BiConsumer<String, List<CheckResult>> cacheRecorder = (fileName, results) -> {
+            final String contentHash = contentHashes.get(fileName);
+            if (contentHash != null && results != null) {
+                resultCache.put(fileName, contentHash, results);
+            }
+        };
+        if (streamer == null) {
+            final Map<String, List<CheckResult>> audited = runAudit(auditor, filesToAudit, contentHashes, null);
+            audited.forEach(cacheRecorder);
+            result.putAll(audited);
+        } else {
+            // Streamed when each file is finished, by a thread of the pool for a large batch
+            final Map<String, List<CheckResult>> streamed = new ConcurrentHashMap<>();
+            final Map<String, List<CheckResult>> lateErrors = runAudit(
+                auditor,
+                filesToAudit,
+                contentHashes,
+                cacheRecorder.andThen(streamer::add).andThen((fileName, results) -> {
+                    if (results != null) {
+                        streamed.put(fileName, results);
+                    }
+                })
+            );
+            // Errors fired once the files are finished, e.g. by FileSetCheck.finishProcessing, complete their results
+            lateErrors.forEach((fileName, errors) -> {
+                if (errors != null && !errors.isEmpty()) {
+                    final List<CheckResult> results =
+                        new ArrayList<>(streamed.getOrDefault(fileName, Collections.emptyList()));
+                    results.addAll(errors);
+                    cacheRecorder.accept(fileName, results);
+                    streamer.add(fileName, results);
+                }
+            });
+        }
+        if (resultCache != null) {
+            resultCache.saveIfNeeded();
+        }
+        return result;
+    }
+
+    private Map<String, List<CheckResult>> runAudit(
+        Auditor auditor,
+        List<File> filesToCheck,
+        Map<String, String> contentHashes,
+        BiConsumer<String, List<CheckResult>> handler
+    ) throws Exception {
+        try {
+            return auditor.audit(filesToCheck, contentHashes, handler);
+        } catch (CheckstyleException e) { // The checker wraps what is thrown by the listener on cancellation
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof CancellationException) {
+                    throw (CancellationException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private Map<String, List<CheckResult>> audit(
+        List<File> filesToCheck,
+        String charset,
+        Map<String, String> contentHashes,
+        BiConsumer<String, List<CheckResult>> handler,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        // Files whose text was read by a previous audit are not read again, only parsed
+        final ContentChecker.TextReader reader =
+            file -> textCache.readFile(file, charset, contentHashes.get(file.getAbsolutePath()));
+        if (checkerPool != null && filesToCheck.size() > CheckerPool.CHUNK_SIZE) {
+            return checkerPool.checkCode(filesToCheck, charset, reader, handler, monitor);
+        }
+        synchronized (checkerLock) {
+            checker.setCharset(charset);
+            listener.setFileResultHandler(handler);
+            listener.setMonitor(monitor);
+            try {
+                checker.processTexts(filesToCheck, charset, reader);
+            } finally {
+                listener.setFileResultHandler(null);
+                listener.setMonitor(null);
+            }
+            return listener.getResult(filesToCheck);
+        }
+    }
+
+    private Map<String, List<CheckResult>> auditContents(
+        List<File> filesToCheck,
+        Map<File, String> fileContents,
+        String charset,
+        Map<String, String> contentHashes,
+        BiConsumer<String, List<CheckResult>> handler,
+        ICheckProgressMonitor monitor
+    ) throws Exception {
+        final ContentChecker.TextReader reader = file ->
+            textCache.readContent(file, fileContents.get(file), charset, contentHashes.get(file.getAbsolutePath()));
+        synchronized (checkerLock) {
+            checker.setCharset(charset);
+            listener.setFileResultHandler(handler);
+            listener.setMonitor(monitor);
+            try {
+                checker.processTexts(filesToCheck, charset, reader);
+            } finally {
+                listener.setFileResultHandler(null);
+                listener.setMonitor(null);
+            }
+            return listener.getResult(filesToCheck);
+        }
+    }
+
+    private void activate(ConfiguredChecker configured) {
+        activeChecker = configured;
+        checker = configured != null ? configured.checker : null;
+        listener = configured != null ? configured.listener : null;
+        checkerPool = configured != null ? configured.checkerPool : null;
+        resultCache = configured != null ? configured.resultCache : null;
+    }
+
+    private int getParallelism(Map<String, Object> config) {
+        final Object parallelism = config.get("parallelism");
+        if (parallelism instanceof Number && ((Number) parallelism).intValue() > 0) { // Arrives as Double from JSON
+            // More checkers than threads would only wait for one another
+            return Math.min(((Number) parallelism).intValue(), executor.getParallelism());
+        }
+        return executor.getParallelism();
+    }
+
+    private static final class ConfiguredChecker {
+        private final Configuration configuration;
+        private final ConfigurationReferences references;
+        private final ContentChecker checker;
+        private final CheckerListener listener;
+        private final CheckerPool checkerPool;
+        private final ResultCache resultCache;
+        private volatile boolean warmedUp = false;
+
+        ConfiguredChecker(
+            Configuration configuration,
+            ConfigurationReferences references,
+            CheckerPool checkerPool,
+            ResultCache resultCache
+        ) throws CheckstyleException {
+            this.configuration = configuration;
+            this.references = references;
+            listener = new CheckerListener();
+            checker = createChecker(listener);
+            checker.configure(configuration);
+            // Extra checkers are configured lazily by the pool when a large batch comes
+            this.checkerPool = checkerPool;
+            this.resultCache = resultCache;
+            if (resultCache != null) {
+                resultCache.load();
+            }
+        }
+
+        void dispose() { // Each configuration has a cache file of its own, whether it is active or not
+            if (resultCache != null) {
+                resultCache.save();
+            }
+            if (checkerPool != null) {
+                checkerPool.dispose();
+            }
+            checker.removeListener(listener);
+            checker.destroy();
+        }
+    }
+
+    private interface Auditor {
+        Map<String, List<CheckResult>> audit(
+            List<File> filesToCheck,
+            Map<String, String> contentHashes,
+            BiConsumer<String, List<CheckResult>> handler
+        ) throws Exception;
     }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * The local files a loaded configuration refers to from the properties of its modules, e.g. its suppressions,
+ * header or import control files, with the hashes of their contents when the configuration was loaded. Whether a
+ * configuration referring to a remote resource changed cannot be told.
+ */
+final class ConfigurationReferences {
+
+    // Configuration names the properties of the modules attributes up to Checkstyle v8.44, they are gone since v10
+    private static final boolean PROPERTY_API = hasPropertyApi();
+
+    private final Map<String, String> contentHashes; // Sorted by file, for a stable fingerprint
+    private final boolean remote;
+
+    private ConfigurationReferences(Map<String, String> contentHashes, boolean remote) {
+        this.contentHashes = contentHashes;
+        this.remote = remote;
+    }
+
+    /**
+     * Collects the files named by the properties of the modules of the configuration.
+     */
+    static ConfigurationReferences collect(Configuration configuration) throws CheckstyleException {
+        final Map<String, String> contentHashes = new TreeMap<>();
+        final boolean remote = collect(configuration, contentHashes);
+        return new ConfigurationReferences(contentHashes, remote);
+    }
+
+    /**
+     * Returns whether a remote resource is referred to, or a referred file changed since it was collected.
+     */
+    boolean isChanged() {
+        if (remote) {
+            return true;
+        }
+        for (final Map.Entry<String, String> reference : contentHashes.entrySet()) {
+            if (!Objects.equals(reference.getValue(), hash(new File(reference.getKey())))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the fingerprint of a configuration with the contents of the files it refers to, or returns
+     * <code>null</code> if the configuration refers to a remote resource.
+     */
+    String fingerprint(String configurationFingerprint) {
+        if (remote) {
+            return null;
+        }
+        final MessageDigest digest = ResultCache.newDigest();
+        digest.update(configurationFingerprint.getBytes(StandardCharsets.UTF_8));
+        for (final Map.Entry<String, String> reference : contentHashes.entrySet()) {
+            digest.update((reference.getKey() + "=" + reference.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return ResultCache.toHex(digest.digest());
+    }
+
+    /**
+     * Returns whether a location names a resource which is neither a local file nor bundled in a jar.
+     */
+    static boolean isRemote(String location) {
+        final String lowerCase = location.toLowerCase(Locale.ROOT);
+        return lowerCase.startsWith("http://") || lowerCase.startsWith("https://") || lowerCase.startsWith("ftp://");
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean collect(Configuration configuration, Map<String, String> contentHashes)
+            throws CheckstyleException {
+        boolean remote = false;
+        final String[] names = PROPERTY_API ? configuration.getPropertyNames() : configuration.getAttributeNames();
+        for (final String name : names) {
+            final String value = PROPERTY_API ? configuration.getProperty(name) : configuration.getAttribute(name);
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            if (isRemote(value)) {
+                remote = true;
+                continue;
+            }
+            final File file = toFile(value);
+            if (file != null && file.isFile()) { // Most properties are not files, e.g. patterns or numbers
+                contentHashes.put(file.getAbsolutePath(), hash(file));
+            }
+        }
+        for (final Configuration child : configuration.getChildren()) {
+            remote |= collect(child, contentHashes);
+        }
+        return remote;
+    }
+
+    private static File toFile(String value) {
+        try {
+            return value.startsWith("file:") ? new File(URI.create(value)) : new File(value);
+        } catch (IllegalArgumentException e) { // Not a valid file URI
+            return null;
+        }
+    }
+
+    private static String hash(File file) {
+        try {
+            return ResultCache.toHex(ResultCache.newDigest().digest(Files.readAllBytes(file.toPath())));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean hasPropertyApi() {
+        try {
+            Configuration.class.getMethod("getPropertyNames");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.Definitions;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.BeforeExecutionFileFilter;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.Violation;
+import com.puppycrawl.tools.checkstyle.utils.CommonUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * A {@link Checker} which can also audit file contents held in memory, or texts read ahead. The checker keeps
+ * track of the modules it is configured with, since {@link Checker#process(List)} always reads the files from disk.
+ * The listener is given at construction, since the audit events are fired by private methods of the checker.
+ */
+public class ContentChecker extends Checker {
+
+    private static final Logger LOGGER = Logger.getLogger(ContentChecker.class.getName());
+
+    // Private fields of Checkstyle, read or written once per class loader, null when they cannot be accessed
+    private static final Field FILE_EXTENSIONS = accessField(Checker.class, "fileExtensions");
+    private static final Field FILE_TEXT_CHARSET = accessField(FileText.class, "charset");
+    private static final Field FILE_TEXT_FULL_TEXT = accessField(FileText.class, "fullText");
+    // Creates a Violation, or a LocalizedMessage for Checkstyle versions <= v8.41.1
+    private static final MethodHandle NEW_VIOLATION = bindViolationConstructor();
+
+    static {
+        if (FILE_TEXT_CHARSET == null || FILE_TEXT_FULL_TEXT == null) {
+            LOGGER.warning("Contents checked in memory have their lines joined with '\\n' and no charset, " +
+                "checks of the full text may report other violations than on the saved files");
+        }
+    }
+
+    private final List<FileSetCheck> fileSetChecks = new ArrayList<>();
+    private final List<BeforeExecutionFileFilter> beforeExecutionFileFilters = new ArrayList<>();
+    private final List<AuditListener> listeners = new CopyOnWriteArrayList<>();
+    private String[] fileExtensions = null;
+
+    public ContentChecker(AuditListener listener) {
+        addListener(listener);
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(AuditListener listener) {
+        super.removeListener(listener);
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void addFileSetCheck(FileSetCheck fileSetCheck) {
+        super.addFileSetCheck(fileSetCheck);
+        fileSetChecks.add(fileSetCheck);
+    }
+
+    @Override
+    public void addBeforeExecutionFileFilter(BeforeExecutionFileFilter filter) {
+        super.addBeforeExecutionFileFilter(filter);
+        beforeExecutionFileFilters.add(filter);
+    }
+
+    @Override
+    protected void finishLocalSetup() throws CheckstyleException {
+        super.finishLocalSetup();
+        // The properties of the checker are set by now, read the extensions it normalized
+        fileExtensions = FILE_EXTENSIONS != null ? (String[]) readField(FILE_EXTENSIONS, this) : null;
+    }
+
+    /**
+     * Audits the given files like {@link Checker#process(List)} does, firing the same events to the listeners,
+     * with their texts provided by the reader, e.g. from contents held in memory or from a cache. The files which
+     * cannot be read are reported with the same violation as {@link Checker#process(List)} reports.
+     *
+     * @param files   the files to audit
+     * @param charset the charset passed to the file set checks
+     * @param reader  the reader of the texts of the files
+     * @throws CheckstyleException if a check fails on one of the files
+     */
+    public void processTexts(List<File> files, String charset, TextReader reader) throws CheckstyleException {
+        final AuditEvent auditEvent = new AuditEvent(this);
+        listeners.forEach(listener -> listener.auditStarted(auditEvent));
+        for (final FileSetCheck fsc : fileSetChecks) {
+            fsc.beginProcessing(charset);
+        }
+        for (final File file : files) {
+            final String fileName = file.getAbsolutePath();
+            if (CommonUtil.matchesFileExtension(file, fileExtensions) && acceptFileStarted(fileName)) {
+                fireFileStarted(fileName);
+                SortedSet<Violation> fileMessages;
+                try {
+                    fileMessages = processText(file, reader.read(file));
+                } catch (IOException e) { // E.g. deleted since it was listed
+                    fileMessages = new TreeSet<>();
+                    addExceptionViolation(fileMessages, file, e);
+                }
+                fireErrors(fileName, fileMessages);
+                fireFileFinished(fileName);
+            }
+        }
+        fileSetChecks.forEach(FileSetCheck::finishProcessing);
+        fileSetChecks.forEach(FileSetCheck::destroy);
+        listeners.forEach(listener -> listener.auditFinished(auditEvent));
+    }
+
+    private boolean acceptFileStarted(String fileName) {
+        for (final BeforeExecutionFileFilter filter : beforeExecutionFileFilters) {
+            if (!filter.accept(fileName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the text of a content held in memory, as if it was read from the given file with the given charset.
+     * The texts of the files on disk are read by {@link FileText#FileText(File, String)} instead.
+     */
+    static FileText toFileText(File file, String content, String charset) throws IOException {
+        final FileText fileText = new FileText(file.getAbsoluteFile(), readLines(content));
+        // The text built from lines joins them with '\n' and tells no charset, unlike the text read from disk
+        if (FILE_TEXT_CHARSET != null && FILE_TEXT_FULL_TEXT != null) { // Logged once otherwise
+            writeField(FILE_TEXT_CHARSET, fileText, Charset.forName(charset));
+            writeField(FILE_TEXT_FULL_TEXT, fileText, content);
+        }
+        return fileText;
+    }
+
+    private SortedSet<Violation> processText(File file, FileText fileText) throws CheckstyleException {
+        final SortedSet<Violation> fileMessages = new TreeSet<>();
+        try {
+            for (final FileSetCheck fsc : fileSetChecks) {
+                fileMessages.addAll(fsc.process(file, fileText));
+            }
+        } catch (Exception e) {
+            throw new CheckstyleException("Exception was thrown while processing " + file.getPath(), e);
+        }
+        return fileMessages;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addExceptionViolation(SortedSet<?> fileMessages, File file, IOException e)
+            throws CheckstyleException {
+        try {
+            // The same violation Checker reports on the files it cannot read
+            final String[] args = {e.getMessage()};
+            final Object violation = NEW_VIOLATION.invoke(
+                1, Definitions.CHECKSTYLE_BUNDLE, EXCEPTION_MSG, args, null, Checker.class, null
+            );
+            ((SortedSet<Object>) fileMessages).add(violation);
+        } catch (Throwable t) { // No violation class could be bound
+            throw new CheckstyleException("Exception was thrown while processing " + file.getPath(), e);
+        }
+    }
+
+    private static List<String> readLines(String content) throws IOException {
+        // Break down the lines the same way FileText does when reading from disk
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new StringReader(content))) {
+            String line = reader.readLine();
+            while (line != null) {
+                lines.add(line);
+                line = reader.readLine();
+            }
+        }
+        return lines;
+    }
+
+    private static Field accessField(Class<?> type, String name) {
+        try {
+            final Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | RuntimeException e) { // E.g. SecurityException, InaccessibleObjectException
+            // The field is gone or cannot be accessed, its value stays as Checkstyle sets it
+            return null;
+        }
+    }
+
+    private static Object readField(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static void writeField(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) { // Keep the value set by Checkstyle
+            LOGGER.warning("Cannot write " + field + ": " + e.getMessage());
+        }
+    }
+
+    private static MethodHandle bindViolationConstructor() {
+        final MethodType type = MethodType.methodType(
+            void.class, int.class, String.class, String.class, Object[].class, String.class, Class.class, String.class
+        );
+        try {
+            return MethodHandles.publicLookup().findConstructor(Violation.class, type);
+        } catch (NoClassDefFoundError | NoSuchMethodException | IllegalAccessException e) {
+            // If Violation does not exist, Checkstyle version <= v8.41.1 is used
+        }
+        try {
+            final Class<?> localizedMessage = Class.forName(
+                "com.puppycrawl.tools.checkstyle.api.LocalizedMessage", true, Checker.class.getClassLoader()
+            );
+            return MethodHandles.publicLookup().findConstructor(localizedMessage, type);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Provides the text of a file to audit.
+     */
+    @FunctionalInterface
+    public interface TextReader {
+        FileText read(File file) throws IOException;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.api.FileText;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the texts of the files recently audited, keyed by file and content hash, so the files audited again
+ * with another configuration are neither read nor decoded again. Texts are never shared across files, since
+ * checks may name the file from its text. The texts are softly referenced, they are reclaimed before the memory
+ * runs short.
+ */
+public class FileTextCache {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<String, CachedText> entries = new LinkedHashMap<>(16, 0.75f, true) { // Access order for LRU
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedText> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Returns the text of a file read from disk, which is only read when its text is not cached for the given
+     * content hash. Without a content hash, the file is read and its text is not cached.
+     */
+    public FileText readFile(File file, String charset, String contentHash) throws IOException {
+        return get(file, contentHash, () -> new FileText(file.getAbsoluteFile(), charset));
+    }
+
+    /**
+     * Returns the text of a content held in memory, which is only built when it is not cached for the given
+     * content hash.
+     */
+    public FileText readContent(File file, String content, String charset, String contentHash) throws IOException {
+        return get(file, contentHash, () -> ContentChecker.toFileText(file, content, charset));
+    }
+
+    private FileText get(File file, String contentHash, TextSupplier supplier) throws IOException {
+        if (contentHash == null) {
+            return supplier.get();
+        }
+        final String fileName = file.getAbsolutePath();
+        synchronized (entries) {
+            final CachedText cached = entries.get(fileName);
+            final FileText text = cached != null && cached.contentHash.equals(contentHash) ? cached.text.get() : null;
+            if (text != null) {
+                return text;
+            }
+        }
+        final FileText text = supplier.get();
+        synchronized (entries) {
+            entries.put(fileName, new CachedText(contentHash, text));
+        }
+        return text;
+    }
+
+    @FunctionalInterface
+    private interface TextSupplier {
+        FileText get() throws IOException;
+    }
+
+    private static final class CachedText {
+        private final String contentHash;
+        private final SoftReference<FileText> text;
+
+        CachedText(String contentHash, FileText text) {
+            this.contentHash = contentHash;
+            this.text = new SoftReference<>(text);
+        }
+    }
+}
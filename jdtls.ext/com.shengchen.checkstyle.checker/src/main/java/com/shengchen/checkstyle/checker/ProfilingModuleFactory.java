@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.PackageNamesLoader;
+import com.puppycrawl.tools.checkstyle.PackageObjectFactory;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractCheck;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A module factory wrapping the one a {@link com.puppycrawl.tools.checkstyle.Checker} creates by default, which
+ * records the file set checks in the order they are created, with the name of the module each of them stands for.
+ * A tree walker stands for the check it walks the tree for, the profiler gives each check a tree walker of its own.
+ */
+public class ProfilingModuleFactory implements ModuleFactory {
+
+    private final ModuleFactory delegate;
+    private final List<ProfiledModule> fileSetChecks = new ArrayList<>();
+    private ProfiledModule treeWalker = null;
+
+    public ProfilingModuleFactory(ClassLoader moduleClassLoader) throws CheckstyleException {
+        delegate = new PackageObjectFactory(PackageNamesLoader.getPackageNames(moduleClassLoader), moduleClassLoader);
+    }
+
+    @Override
+    public Object createModule(String name) throws CheckstyleException {
+        final Object module = delegate.createModule(name);
+        if (module instanceof TreeWalker) { // Its children are created next, while it is configured
+            treeWalker = new ProfiledModule(name, (FileSetCheck) module, true);
+            fileSetChecks.add(treeWalker);
+        } else if (module instanceof FileSetCheck) {
+            fileSetChecks.add(new ProfiledModule(name, (FileSetCheck) module, false));
+        } else if (module instanceof AbstractCheck && treeWalker != null) {
+            treeWalker.setName(name);
+        }
+        return module;
+    }
+
+    /**
+     * Creates a module without recording it, e.g. to find out what kind of module a name stands for.
+     */
+    Object createUnrecordedModule(String name) throws CheckstyleException {
+        return delegate.createModule(name);
+    }
+
+    List<ProfiledModule> getFileSetChecks() {
+        return fileSetChecks;
+    }
+
+    /**
+     * A file set check and the measures taken while profiling it.
+     */
+    static final class ProfiledModule {
+        private final FileSetCheck fileSetCheck;
+        private final boolean treeWalker;
+        private String name;
+        private long nanos = 0;
+        private int invocations = 0;
+        private int violations = 0;
+
+        ProfiledModule(String name, FileSetCheck fileSetCheck, boolean treeWalker) {
+            this.name = name;
+            this.fileSetCheck = fileSetCheck;
+            this.treeWalker = treeWalker;
+        }
+
+        FileSetCheck getFileSetCheck() {
+            return fileSetCheck;
+        }
+
+        boolean isTreeWalker() {
+            return treeWalker;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        void setName(String name) {
+            this.name = name;
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+
+        int getInvocations() {
+            return invocations;
+        }
+
+        int getViolations() {
+            return violations;
+        }
+
+        void record(long elapsedNanos, int reportedViolations) {
+            nanos += elapsedNanos;
+            invocations++;
+            violations += reportedViolations;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.shengchen.checkstyle.runner.api.CheckResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ResultCache {
+
+    // One file per configuration, named by the start of its fingerprint, so configurations never overwrite each other
+    private static final String CACHE_FILE_PREFIX = "results";
+    private static final String CACHE_FILE_SUFFIX = ".cache";
+    private static final int MAX_CACHE_FILES = 8;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_ENTRIES = 20000;
+    private static final int SAVE_THRESHOLD = 256;
+    private static final long SAVE_INTERVAL_MILLIS = 60 * 1000;
+
+    private final Path cachePath;
+    private final String fingerprint;
+    private final Map<String, CachedResult> entries = new LinkedHashMap<>(16, 0.75f, true) { // Access order for LRU
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private int dirtyCount = 0;
+    private long lastSaved = System.currentTimeMillis();
+
+    public ResultCache(Path cacheDir, String fingerprint) {
+        this.cachePath = cacheDir.resolve(CACHE_FILE_PREFIX + "-" + fingerprint.substring(0, 16) + CACHE_FILE_SUFFIX);
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Computes the fingerprint of a configuration from the content of the configuration file, the expanded
+     * properties, the jars of the third-party modules and the Checkstyle version. Configurations bundled in
+     * a jar are identified by their location, while remote configurations cannot be fingerprinted and
+     * <code>null</code> is returned. The files the configuration refers to are only known once it is loaded,
+     * see {@link ConfigurationReferences#fingerprint(String)}.
+     */
+    public static String fingerprint(
+        String configurationPath,
+        Map<String, String> properties,
+        List<String> moduleJarPaths,
+        String version
+    ) throws IOException {
+        if (ConfigurationReferences.isRemote(configurationPath)) {
+            return null;
+        }
+        final MessageDigest digest = newDigest();
+        final File configurationFile = new File(configurationPath);
+        if (configurationFile.isFile()) {
+            digest.update(Files.readAllBytes(configurationFile.toPath()));
+        } else {
+            digest.update(configurationPath.getBytes(StandardCharsets.UTF_8));
+        }
+        for (final Map.Entry<String, String> property : new TreeMap<>(properties).entrySet()) {
+            digest.update((property.getKey() + "=" + property.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        for (final String moduleJarPath : moduleJarPaths) { // A replaced jar is told by its size and time
+            final File moduleJar = new File(moduleJarPath);
+            digest.update((moduleJarPath + ":" + moduleJar.length() + ":" + moduleJar.lastModified() + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update(String.valueOf(version).getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Computes the hash of a file content decoded with the given charset, or <code>null</code>
+     * if the file cannot be read.
+     */
+    public static String hash(File file, String charset) {
+        try {
+            final MessageDigest digest = newDigest();
+            digest.update(Files.readAllBytes(file.toPath()));
+            digest.update(charset.getBytes(StandardCharsets.UTF_8));
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Computes the hash of a content held in memory.
+     */
+    public static String hash(String content) {
+        final MessageDigest digest = newDigest();
+        digest.update(content.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    public synchronized List<CheckResult> get(String fileName, String contentHash) {
+        final CachedResult entry = entries.get(fileName);
+        if (entry != null && entry.contentHash.equals(contentHash)) {
+            return entry.results;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached results of all files, whether their content changed since or not.
+     */
+    public synchronized Map<String, List<CheckResult>> getAll() {
+        final Map<String, List<CheckResult>> results = new HashMap<>(entries.size());
+        for (final Map.Entry<String, CachedResult> entry : entries.entrySet()) { // Iterating keeps the LRU order
+            results.put(entry.getKey(), entry.getValue().results);
+        }
+        return results;
+    }
+
+    public synchronized void put(String fileName, String contentHash, List<CheckResult> results) {
+        entries.put(fileName, new CachedResult(contentHash, results));
+        dirtyCount++;
+    }
+
+    public synchronized void invalidate(String fileName) {
+        if (entries.remove(fileName) != null) {
+            dirtyCount++;
+        }
+    }
+
+    public synchronized void load() {
+        if (!Files.isRegularFile(cachePath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachePath)))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(fingerprint)) {
+                return; // Written by another format or a colliding configuration, it will be overwritten on next save
+            }
+            final int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                final String fileName = in.readUTF();
+                final String contentHash = in.readUTF();
+                final int resultCount = in.readInt();
+                final List<CheckResult> results = new ArrayList<>(resultCount);
+                for (int j = 0; j < resultCount; j++) {
+                    results.add(new CheckResult(in.readInt(), in.readInt(), in.readUTF(), in.readUTF(), in.readUTF()));
+                }
+                entries.put(fileName, new CachedResult(contentHash, results));
+            }
+        } catch (IOException e) {
+            entries.clear(); // A broken cache only costs a re-audit
+        }
+    }
+
+    public synchronized void saveIfNeeded() {
+        if (dirtyCount >= SAVE_THRESHOLD ||
+                (dirtyCount > 0 && System.currentTimeMillis() - lastSaved >= SAVE_INTERVAL_MILLIS)) {
+            save();
+        }
+    }
+
+    public synchronized void save() {
+        if (dirtyCount == 0) {
+            return;
+        }
+        try {
+            Files.createDirectories(cachePath.getParent());
+            final Path tempPath = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(fingerprint);
+                out.writeInt(entries.size());
+                for (final Map.Entry<String, CachedResult> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue().contentHash);
+                    out.writeInt(entry.getValue().results.size());
+                    for (final CheckResult result : entry.getValue().results) {
+                        out.writeInt(result.getLine());
+                        out.writeInt(result.getColumn());
+                        out.writeUTF(result.getMsg());
+                        out.writeUTF(result.getSeverity());
+                        out.writeUTF(result.getSourceName());
+                    }
+                }
+            }
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirtyCount = 0;
+            lastSaved = System.currentTimeMillis();
+        } catch (IOException e) {
+            // Keep the entries dirty, the next save will retry
+            return;
+        }
+        deleteStaleCacheFiles();
+    }
+
+    private void deleteStaleCacheFiles() {
+        // The files of the configurations saved least recently go first, as well as the file shared by all of them
+        // before the files were split by configuration
+        final List<Path> cacheFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+            cachePath.getParent(),
+            CACHE_FILE_PREFIX + "*" + CACHE_FILE_SUFFIX
+        )) {
+            stream.forEach(cacheFiles::add);
+        } catch (IOException e) {
+            return;
+        }
+        cacheFiles.sort(Comparator.comparingLong((Path path) -> path.toFile().lastModified()).reversed());
+        for (int i = 0; i < cacheFiles.size(); i++) {
+            final Path cacheFile = cacheFiles.get(i);
+            final boolean legacy = cacheFile.getFileName().toString().equals(CACHE_FILE_PREFIX + CACHE_FILE_SUFFIX);
+            if (i >= MAX_CACHE_FILES || legacy) {
+                try {
+                    Files.deleteIfExists(cacheFile);
+                } catch (IOException e) {
+                    // Retried on next save
+                }
+            }
+        }
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform is required to support SHA-256
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static final class CachedResult {
+        private final String contentHash;
+        private final List<CheckResult> results;
+
+        CachedResult(String contentHash, List<CheckResult> results) {
+            this.contentHash = contentHash;
+            this.results = results;
+        }
+    }
+}
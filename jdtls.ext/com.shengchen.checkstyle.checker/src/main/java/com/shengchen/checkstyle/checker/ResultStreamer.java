@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.checker;
+
+import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.IResultPublisher;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResultStreamer {
+
+    private static final int BATCH_SIZE = 100;
+    private static final long FLUSH_INTERVAL_MILLIS = 500;
+
+    private final IResultPublisher publisher;
+    private Map<String, List<CheckResult>> batch = new HashMap<>();
+    private long lastFlushed = 0; // Publish the first file at once
+
+    public ResultStreamer(IResultPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    public synchronized void add(String fileName, List<CheckResult> results) {
+        if (results == null) { // The file is not checked, e.g. filtered by its extension
+            return;
+        }
+        batch.put(fileName, results);
+        if (batch.size() >= BATCH_SIZE || System.currentTimeMillis() - lastFlushed >= FLUSH_INTERVAL_MILLIS) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() {
+        if (!batch.isEmpty()) {
+            final Map<String, List<CheckResult>> results = batch;
+            batch = new HashMap<>(); // The published batch is owned by the publisher
+            publisher.publish(results);
+        }
+        lastFlushed = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.quickfix;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IRegion;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Fixes violations with a {@link CompositeQuickFixVisitor} the way {@link QuickFixService} does, where a fix
+ * replacing or removing a node meets other fixes of the same node.
+ */
+public class CompositeQuickFixVisitorTest {
+
+    // Indented with tabs, as the rewrite indents the nodes it creates without the options of a project
+    private static final String LOCAL_VARIABLES = "class A {\n\tvoid f() {\n\t\tint a = 0, b = 1;\n\t}\n}\n";
+    private static final String FIELDS = "class A {\n\tprivate int a = 0, b = 0;\n}\n";
+    private static final String BOOLEAN_RETURN =
+        "class A {\n\tboolean f(String s) {\n\t\tif (s == \"x\") return true; else return false;\n\t}\n}\n";
+
+    private final QuickFixService quickFixService = new QuickFixService();
+
+    @Test
+    public void testSplitVariablesMadeFinal() throws Exception {
+        final String expected = "class A {\n\tvoid f() {\n\t\tfinal int a = 0;\n\t\tfinal int b = 1;\n\t}\n}\n";
+        Assert.assertEquals(expected, fix(LOCAL_VARIABLES,
+            "MultipleVariableDeclarationsCheck", "int a",
+            "FinalLocalVariableCheck", "a =",
+            "FinalLocalVariableCheck", "b ="
+        ));
+        Assert.assertEquals(expected, fix(LOCAL_VARIABLES,
+            "FinalLocalVariableCheck", "a =",
+            "FinalLocalVariableCheck", "b =",
+            "MultipleVariableDeclarationsCheck", "int a"
+        ));
+    }
+
+    @Test
+    public void testReplacedFieldsInitializedExplicitly() throws Exception {
+        final String expected = "class A {\n\tprivate int a;\n\tprivate int b;\n}\n";
+        Assert.assertEquals(expected, fix(FIELDS,
+            "MultipleVariableDeclarationsCheck", "private",
+            "ExplicitInitializationCheck", "a =",
+            "ExplicitInitializationCheck", "b ="
+        ));
+        Assert.assertEquals(expected, fix(FIELDS,
+            "ExplicitInitializationCheck", "a =",
+            "ExplicitInitializationCheck", "b =",
+            "MultipleVariableDeclarationsCheck", "private"
+        ));
+    }
+
+    @Test
+    public void testReplacedStatementWithFixedCondition() throws Exception {
+        // The condition is fixed in the detached if statement unless the fix of the condition is deferred
+        final String expected = "class A {\n\tboolean f(String s) {\n\t\treturn \"x\".equals(s);\n\t}\n}\n";
+        Assert.assertEquals(expected, fix(BOOLEAN_RETURN,
+            "SimplifyBooleanReturnCheck", "if",
+            "StringLiteralEqualityCheck", "s =="
+        ));
+        Assert.assertEquals(expected, fix(BOOLEAN_RETURN,
+            "StringLiteralEqualityCheck", "s ==",
+            "SimplifyBooleanReturnCheck", "if"
+        ));
+    }
+
+    /**
+     * Fixes the violations given as pairs of check names and of the text the violation starts at.
+     */
+    private String fix(String source, String... violations) throws Exception {
+        final Document document = new Document(source);
+        final CompilationUnit astRoot = parse(source);
+        astRoot.recordModifications();
+        final CompositeQuickFixVisitor visitor = new CompositeQuickFixVisitor();
+        for (int i = 0; i < violations.length; i += 2) {
+            final int offset = source.indexOf(violations[i + 1]);
+            final IRegion lineInfo = document.getLineInformationOfOffset(offset);
+            visitor.add(quickFixService.getQuickFix(violations[i]).getCorrectingASTVisitor(lineInfo, offset), lineInfo);
+        }
+        astRoot.accept(visitor);
+        astRoot.rewrite(document, null).apply(document);
+        return document.get();
+    }
+
+    private static CompilationUnit parse(String source) {
+        final Map<String, String> compilerOptions = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_17, compilerOptions);
+        final ASTParser astParser = ASTParser.newParser(AST.getJLSLatest());
+        astParser.setKind(ASTParser.K_COMPILATION_UNIT);
+        astParser.setCompilerOptions(compilerOptions);
+        astParser.setSource(source.toCharArray());
+        return (CompilationUnit) astParser.createAST(null);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.quickfix;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the ASTs of the units a quick fix was requested on, so the next fix on the same unit does not wait
+ * for the parser. Quick fixes record their modifications on the AST they visit, so an AST is handed out at most once,
+ * and only for the exact source it was parsed from. The entry of the unit is kept for that source, and
+ * another AST is parsed in the background for the next fix on it.
+ */
+public class ASTCache {
+
+    private static final int MAX_ENTRIES = 4;
+
+    private final Map<String, CachedAST> entries = new LinkedHashMap<>(16, 0.75f, true) { // Access order for LRU
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedAST> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Returns the AST of the unit for the given source, parsed now unless parsed after the previous fix.
+     */
+    public CompilationUnit take(ICompilationUnit unit, String source) {
+        CompilationUnit astRoot = null;
+        synchronized (entries) {
+            final CachedAST cached = entries.get(unit.getHandleIdentifier());
+            if (cached != null && cached.source.equals(source)) {
+                astRoot = cached.astRoot;
+                cached.astRoot = null;
+            }
+        }
+        if (astRoot == null) {
+            astRoot = parse(unit);
+        }
+        prepare(unit);
+        return astRoot;
+    }
+
+    /**
+     * Parses the current source of the unit in the background, unless its AST is cached for it already.
+     */
+    private void prepare(ICompilationUnit unit) {
+        final Job job = Job.createSystem("Parse unit for Checkstyle quick fixes", monitor -> {
+            if (monitor.isCanceled()) {
+                return;
+            }
+            final String source = unit.getSource();
+            synchronized (entries) {
+                final CachedAST cached = entries.get(unit.getHandleIdentifier());
+                if (cached != null && cached.source.equals(source) && cached.astRoot != null) {
+                    return;
+                }
+            }
+            final CompilationUnit astRoot = parse(unit);
+            if (source.equals(unit.getSource())) { // Drop the AST if the unit changed while it was parsed
+                synchronized (entries) {
+                    entries.put(unit.getHandleIdentifier(), new CachedAST(source, astRoot));
+                }
+            }
+        });
+        job.setPriority(Job.DECORATE);
+        job.schedule();
+    }
+
+    static CompilationUnit parse(ICompilationUnit unit) {
+        final ASTParser astParser = ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+        astParser.setKind(ASTParser.K_COMPILATION_UNIT);
+        astParser.setSource(unit);
+        return (CompilationUnit) astParser.createAST(null);
+    }
+
+    private static final class CachedAST {
+        private final String source;
+        private CompilationUnit astRoot; // Null once handed out, until parsed again
+
+        CachedAST(String source, CompilationUnit astRoot) {
+            this.source = source;
+            this.astRoot = astRoot;
+        }
+    }
+}
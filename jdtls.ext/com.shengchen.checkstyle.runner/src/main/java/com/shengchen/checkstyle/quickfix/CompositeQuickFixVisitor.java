@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.quickfix;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jface.text.IRegion;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies the correcting visitors of many violations in a single traversal of the AST. The violations are
+ * indexed by the region of their line in a {@link MarkerIndex}, and each node is only routed to the visitors
+ * whose violation lies within the node and which declare a <code>visit</code> method for the type of the
+ * node. Subtrees without any violation are skipped.
+ * <p>
+ * A fix which replaces or removes the node it visits detaches the node the other visitors of its lines were
+ * about to visit, e.g. splitting <code>int a = 0, b = 1;</code> while making it final. Those visitors are taken
+ * out of the traversal and run after it, each in a pass of its own over the AST as fixed so far, skipping the
+ * nodes they already visited.
+ * </p>
+ */
+public class CompositeQuickFixVisitor extends ASTVisitor {
+
+    // Node types each visitor class declares a visit method for
+    private static final Map<Class<?>, Set<Class<?>>> NODE_TYPES = new ConcurrentHashMap<>();
+    // ASTVisitor.visit method of each node type
+    private static final Map<Class<?>, MethodHandle> VISIT_METHODS = new ConcurrentHashMap<>();
+
+    private final List<Marker> markers = new ArrayList<>();
+    private final Map<ASTNode, List<Marker>> prunedMarkers = new IdentityHashMap<>();
+    private MarkerIndex index = null;
+
+    public void add(ASTVisitor visitor, IRegion lineInfo) {
+        markers.add(new Marker(visitor, lineInfo));
+        index = null;
+    }
+
+    @Override
+    public boolean preVisit2(ASTNode node) {
+        if (index == null) {
+            markers.sort(Comparator.comparingInt(Marker::getOffset));
+            index = new MarkerIndex(markers);
+        }
+        if (node.getStartPosition() == -1) { // Created by a fix, its children may still be copies of source nodes
+            return true;
+        }
+        final int from = index.first(node);
+        final int to = index.last(node);
+        if (from > to) { // No violation in this subtree
+            return false;
+        }
+        final boolean attached = node.getParent() != null;
+        for (int i = from; i <= to; i++) {
+            final Marker marker = markers.get(i);
+            if (marker.prunedAt != null || marker.deferred || !marker.nodeTypes.contains(node.getClass())) {
+                continue;
+            }
+            marker.visitedNodes.add(node);
+            if (!visit(marker, node)) { // The visitor does not want to see the children of this node
+                marker.prunedAt = node;
+                prunedMarkers.computeIfAbsent(node, key -> new ArrayList<>()).add(marker);
+            }
+            if (attached && node.getParent() == null) { // Replaced or removed by the fix
+                defer(from, to, marker);
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void postVisit(ASTNode node) {
+        if (node.getParent() == null && index != null) {
+            for (final Marker marker : markers) {
+                if (marker.deferred) {
+                    node.accept(new SequentialPass(marker));
+                }
+            }
+        }
+        final List<Marker> released = prunedMarkers.remove(node);
+        if (released != null) {
+            for (final Marker marker : released) {
+                marker.prunedAt = null;
+            }
+        }
+    }
+
+    private void defer(int from, int to, Marker replacingMarker) {
+        for (int i = from; i <= to; i++) {
+            if (markers.get(i) != replacingMarker) {
+                markers.get(i).deferred = true;
+            }
+        }
+    }
+
+    private static boolean visit(Marker marker, ASTNode node) {
+        final MethodHandle visitMethod = VISIT_METHODS.computeIfAbsent(node.getClass(), nodeType -> {
+            try {
+                return MethodHandles.publicLookup()
+                    .unreflect(ASTVisitor.class.getMethod("visit", nodeType))
+                    .asType(MethodType.methodType(boolean.class, ASTVisitor.class, ASTNode.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            return (boolean) visitMethod.invokeExact(marker.visitor, node);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<Class<?>> getNodeTypes(Class<?> visitorClass) {
+        return NODE_TYPES.computeIfAbsent(visitorClass, key -> {
+            final Set<Class<?>> nodeTypes = new HashSet<>();
+            for (Class<?> type = visitorClass; type != ASTVisitor.class; type = type.getSuperclass()) {
+                for (final Method method : type.getDeclaredMethods()) {
+                    if (method.getName().equals("visit") && method.getParameterCount() == 1 &&
+                            ASTNode.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                        nodeTypes.add(method.getParameterTypes()[0]);
+                    }
+                }
+            }
+            return nodeTypes;
+        });
+    }
+
+    private static final class Marker implements IRegion {
+        private final ASTVisitor visitor;
+        private final Set<Class<?>> nodeTypes;
+        private final IRegion lineInfo;
+        private final Set<ASTNode> visitedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        private ASTNode prunedAt = null;
+        private boolean deferred = false;
+
+        Marker(ASTVisitor visitor, IRegion lineInfo) {
+            this.visitor = visitor;
+            this.nodeTypes = getNodeTypes(visitor.getClass());
+            this.lineInfo = lineInfo;
+        }
+
+        @Override
+        public int getOffset() {
+            return lineInfo.getOffset();
+        }
+
+        @Override
+        public int getLength() {
+            return lineInfo.getLength();
+        }
+    }
+
+    /**
+     * Runs the visitor of a deferred marker alone, as if it was the only fix of the traversal.
+     */
+    private static final class SequentialPass extends ASTVisitor {
+        private final Marker marker;
+
+        SequentialPass(Marker marker) {
+            this.marker = marker;
+        }
+
+        @Override
+        public boolean preVisit2(ASTNode node) {
+            final int start = node.getStartPosition();
+            if (start != -1 && (start > marker.getOffset() + marker.getLength() ||
+                    start + node.getLength() < marker.getOffset())) { // Not on the lines of the violation
+                return false;
+            }
+            if (marker.nodeTypes.contains(node.getClass()) && marker.visitedNodes.add(node)) {
+                return CompositeQuickFixVisitor.visit(marker, node);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.quickfix;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.lsp4j.WorkspaceEdit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the quick fix edits computed ahead of the request. The edits of a unit are keyed by the violations
+ * they fix, and are only served for the exact source they were computed on. They are dropped as soon as
+ * the source of the unit changes.
+ */
+public class FixEditCache {
+
+    static final int MAX_UNITS = 4;
+
+    private final Map<String, UnitEdits> entries = new LinkedHashMap<>(16, 0.75f, true) { // Access order for LRU
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UnitEdits> eldest) {
+            return size() > MAX_UNITS;
+        }
+    };
+
+    /**
+     * Returns the edit computed for the violations on the given source, or <code>null</code> if there is none.
+     */
+    public WorkspaceEdit get(ICompilationUnit unit, String source, List<Double> offsets, List<String> sourceNames) {
+        synchronized (entries) {
+            final UnitEdits edits = entries.get(unit.getHandleIdentifier());
+            if (edits == null) {
+                return null;
+            }
+            if (!edits.source.equals(source)) { // The unit changed since the edits were computed
+                entries.remove(unit.getHandleIdentifier());
+                return null;
+            }
+            return edits.edits.get(key(offsets, sourceNames));
+        }
+    }
+
+    public void put(
+        ICompilationUnit unit,
+        String source,
+        List<Double> offsets,
+        List<String> sourceNames,
+        WorkspaceEdit edit
+    ) {
+        synchronized (entries) {
+            UnitEdits edits = entries.get(unit.getHandleIdentifier());
+            if (edits == null || !edits.source.equals(source)) {
+                edits = new UnitEdits(source);
+                entries.put(unit.getHandleIdentifier(), edits);
+            }
+            edits.edits.put(key(offsets, sourceNames), edit);
+        }
+    }
+
+    private static String key(List<Double> offsets, List<String> sourceNames) {
+        // The client may list the same violations in another order
+        final List<String> violations = new ArrayList<>(offsets.size());
+        for (int i = 0; i < offsets.size(); i++) {
+            violations.add(offsets.get(i).intValue() + ":" + sourceNames.get(i));
+        }
+        violations.sort(null);
+        return String.join(",", violations);
+    }
+
+    private static final class UnitEdits {
+        private final String source;
+        private final Map<String, WorkspaceEdit> edits = new HashMap<>();
+
+        UnitEdits(String source) {
+            this.source = source;
+        }
+    }
+}
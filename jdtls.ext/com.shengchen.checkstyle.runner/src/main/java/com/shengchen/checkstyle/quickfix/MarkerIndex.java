@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.quickfix;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jface.text.IRegion;
+
+import java.util.List;
+
+/**
+ * Interval index of the line regions of the violations fixed in a traversal. Lines are either the same
+ * or disjoint, so once the regions are sorted by offset both their starts and their ends are sorted, and
+ * the regions intersecting a node are found with two binary searches.
+ */
+public class MarkerIndex {
+
+    private final int[] regionStarts;
+    private final int[] regionEnds;
+
+    /**
+     * @param regions the line regions of the violations, sorted by offset
+     */
+    public MarkerIndex(List<? extends IRegion> regions) {
+        regionStarts = regions.stream().mapToInt(IRegion::getOffset).toArray();
+        regionEnds = regions.stream().mapToInt(region -> region.getOffset() + region.getLength()).toArray();
+    }
+
+    /**
+     * Returns the position of the first region which ends at or after the start of the node.
+     */
+    int first(ASTNode node) {
+        final int position = node.getStartPosition();
+        int low = 0;
+        int high = regionEnds.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (regionEnds[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position of the last region which starts at or before the end of the node.
+     */
+    int last(ASTNode node) {
+        final int position = node.getStartPosition() + node.getLength();
+        int low = 0;
+        int high = regionStarts.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (regionStarts[middle] <= position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+}
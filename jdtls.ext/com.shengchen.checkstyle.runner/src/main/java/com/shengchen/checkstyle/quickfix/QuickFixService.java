@@ -37,11 +37,15 @@ import com.shengchen.checkstyle.quickfix.misc.UpperEllQuickFix;
 import com.shengchen.checkstyle.quickfix.modifier.ModifierOrderQuickFix;
 import com.shengchen.checkstyle.quickfix.modifier.RedundantModifierQuickFix;
 import com.shengchen.checkstyle.quickfix.utils.EditUtils;
+import com.shengchen.checkstyle.runner.api.CheckResult;
 import com.shengchen.checkstyle.runner.api.IQuickFixService;
 
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTRequestor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.internal.corext.dom.IASTSharedValues;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
@@ -51,13 +55,28 @@ import org.eclipse.jface.text.IRegion;
 import org.eclipse.lsp4j.WorkspaceEdit;
 import org.eclipse.text.edits.TextEdit;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class QuickFixService implements IQuickFixService {
 
+    // Number of files parsed together by a worker of the batch quick fix
+    private static final int BATCH_SIZE = 32;
+    // Number of violations of a file whose fixes are computed one by one ahead of the request, each parses the file
+    private static final int MAX_PRECOMPUTED_FIXES = 4;
+    // Delay before the fixes are computed, so the checks of quick successive edits only compute them once
+    private static final long PRECOMPUTE_DELAY_MILLIS = 500;
+
     private final Map<String, BaseQuickFix> quickFixMap;
+    private final ASTCache astCache = new ASTCache();
+    private final FixEditCache fixEditCache = new FixEditCache();
+    private Job precomputeJob = null;
 
     public QuickFixService() {
         quickFixMap = new HashMap<>();
@@ -93,23 +112,178 @@ public class QuickFixService implements IQuickFixService {
         List<String> sourceNames
     ) throws JavaModelException, IllegalArgumentException, BadLocationException {
         final ICompilationUnit unit = JDTUtils.resolveCompilationUnit(fileToCheckUri);
+        final String source = unit.getSource();
+        final WorkspaceEdit precomputed = fixEditCache.get(unit, source, offsets, sourceNames);
+        if (precomputed != null) {
+            return precomputed;
+        }
+        final CompilationUnit astRoot = astCache.take(unit, source);
+        return EditUtils.convertToWorkspaceEdit(unit, fix(unit, astRoot, offsets, sourceNames));
+    }
+
+    /**
+     * Computes ahead the fixes of the violations of the given open files, so applying a fix does not wait for the
+     * parser. The units are the working copies resolved by the check.
+     */
+    public void prepareQuickFix(Map<ICompilationUnit, List<CheckResult>> results) {
+        final Map<ICompilationUnit, List<CheckResult>> fixableResults = new LinkedHashMap<>();
+        for (final Map.Entry<ICompilationUnit, List<CheckResult>> entry : results.entrySet()) {
+            final List<CheckResult> fixable = entry.getValue().stream()
+                .filter(result -> getQuickFix(result.getSourceName()) != null && !"ignore".equals(result.getSeverity()))
+                .collect(Collectors.toList());
+            if (!fixable.isEmpty()) {
+                fixableResults.put(entry.getKey(), fixable);
+            }
+        }
+        precomputeFixes(fixableResults);
+    }
+
+    public WorkspaceEdit batchQuickFix(
+        List<String> fileToCheckUris,
+        List<List<Double>> offsets,
+        List<List<String>> sourceNames
+    ) throws JavaModelException, IllegalArgumentException, BadLocationException {
+        final Map<ICompilationUnit, Integer> fileIndexes = new HashMap<>();
+        final Map<IJavaProject, List<ICompilationUnit>> projectUnits = new LinkedHashMap<>();
+        for (int i = 0; i < fileToCheckUris.size(); i++) {
+            final ICompilationUnit unit = JDTUtils.resolveCompilationUnit(fileToCheckUris.get(i));
+            if (unit != null && !fileIndexes.containsKey(unit)) { // A file listed twice is fixed once, as first listed
+                fileIndexes.put(unit, i);
+                projectUnits.computeIfAbsent(unit.getJavaProject(), project -> new ArrayList<>()).add(unit);
+            }
+        }
+        // Units of a batch share the parser environment of their project
+        final List<List<ICompilationUnit>> batches = new ArrayList<>();
+        for (final List<ICompilationUnit> units : projectUnits.values()) {
+            for (int i = 0; i < units.size(); i += BATCH_SIZE) {
+                batches.add(units.subList(i, Math.min(i + BATCH_SIZE, units.size())));
+            }
+        }
+        final Map<String, List<org.eclipse.lsp4j.TextEdit>> changes = new ConcurrentHashMap<>();
+        final ASTRequestor requestor = new ASTRequestor() {
+            @Override
+            public void acceptAST(ICompilationUnit unit, CompilationUnit astRoot) {
+                final int index = fileIndexes.get(unit);
+                try {
+                    final TextEdit edit = fix(unit, astRoot, offsets.get(index), sourceNames.get(index));
+                    changes.putAll(EditUtils.convertToWorkspaceEdit(unit, edit).getChanges());
+                } catch (JavaModelException | BadLocationException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        };
+        try {
+            batches.parallelStream().forEach(batch -> {
+                final ASTParser astParser = ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
+                astParser.setKind(ASTParser.K_COMPILATION_UNIT);
+                astParser.setProject(batch.get(0).getJavaProject());
+                astParser.createASTs(batch.toArray(new ICompilationUnit[0]), new String[0], requestor, null);
+            });
+        } catch (CompletionException e) { // Unwrap the checked exception thrown while fixing a file
+            if (e.getCause() instanceof JavaModelException) {
+                throw (JavaModelException) e.getCause();
+            } else if (e.getCause() instanceof BadLocationException) {
+                throw (BadLocationException) e.getCause();
+            }
+            throw e;
+        }
+        final WorkspaceEdit workspaceEdit = new WorkspaceEdit();
+        workspaceEdit.getChanges().putAll(changes);
+        return workspaceEdit;
+    }
+
+    private synchronized void precomputeFixes(Map<ICompilationUnit, List<CheckResult>> fixableResults) {
+        if (precomputeJob != null) { // Superseded by the results of a later check
+            precomputeJob.cancel();
+            precomputeJob = null;
+        }
+        if (fixableResults.isEmpty()) {
+            return;
+        }
+        // Only as many units as the cache holds, the edits of the others would be evicted right away
+        final List<Map.Entry<ICompilationUnit, List<CheckResult>>> entries = new ArrayList<>(fixableResults.entrySet())
+            .subList(0, Math.min(fixableResults.size(), FixEditCache.MAX_UNITS));
+        precomputeJob = Job.createSystem("Compute Checkstyle quick fixes", monitor -> {
+            for (final Map.Entry<ICompilationUnit, List<CheckResult>> entry : entries) {
+                if (monitor.isCanceled()) {
+                    return;
+                }
+                final ICompilationUnit unit = entry.getKey();
+                try {
+                    final String source = unit.getSource();
+                    final Document document = new Document(source);
+                    final List<Double> offsets = new ArrayList<>();
+                    final List<String> sourceNames = new ArrayList<>();
+                    for (final CheckResult result : entry.getValue()) {
+                        offsets.add((double) getOffset(document, result));
+                        sourceNames.add(result.getSourceName());
+                    }
+                    if (fixEditCache.get(unit, source, offsets, sourceNames) != null) {
+                        continue; // Computed for the same source after an earlier check
+                    }
+                    // The fix of all violations of the file, then the fixes of single violations
+                    precomputeFix(unit, source, offsets, sourceNames);
+                    for (int i = 0; offsets.size() > 1 && i < offsets.size() && i < MAX_PRECOMPUTED_FIXES; i++) {
+                        if (monitor.isCanceled() || !precomputeFix(unit, source, offsets.subList(i, i + 1),
+                                sourceNames.subList(i, i + 1))) {
+                            break;
+                        }
+                    }
+                } catch (JavaModelException | BadLocationException e) {
+                    // Fixes which cannot be computed ahead are computed on request, and fail there
+                }
+            }
+        });
+        precomputeJob.setPriority(Job.DECORATE);
+        precomputeJob.schedule(PRECOMPUTE_DELAY_MILLIS);
+    }
+
+    private boolean precomputeFix(
+        ICompilationUnit unit,
+        String source,
+        List<Double> offsets,
+        List<String> sourceNames
+    ) throws JavaModelException, BadLocationException {
+        final TextEdit edit = fix(unit, ASTCache.parse(unit), offsets, sourceNames);
+        final WorkspaceEdit workspaceEdit = EditUtils.convertToWorkspaceEdit(unit, edit);
+        if (!source.equals(unit.getSource())) { // Drop the edit if the unit changed while it was computed
+            return false;
+        }
+        fixEditCache.put(unit, source, offsets, sourceNames, workspaceEdit);
+        return true;
+    }
+
+    private static int getOffset(Document document, CheckResult result) throws BadLocationException {
+        // Same position as the client derives from the diagnostic of the violation
+        final int line = Math.max(result.getLine() - 1, 0);
+        if (line >= document.getNumberOfLines()) {
+            return document.getLength();
+        }
+        final IRegion lineInfo = document.getLineInformation(line);
+        return lineInfo.getOffset() + Math.min(Math.max(result.getColumn() - 1, 0), lineInfo.getLength());
+    }
+
+    private TextEdit fix(
+        ICompilationUnit unit,
+        CompilationUnit astRoot,
+        List<Double> offsets,
+        List<String> sourceNames
+    ) throws JavaModelException, BadLocationException {
         final Document document = new Document(unit.getSource());
-        final ASTParser astParser = ASTParser.newParser(IASTSharedValues.SHARED_AST_LEVEL);
-        astParser.setKind(ASTParser.K_COMPILATION_UNIT);
-        astParser.setSource(unit);
-        final CompilationUnit astRoot = (CompilationUnit) astParser.createAST(null);
         astRoot.recordModifications();
 
+        // All violations are fixed in a single traversal of the AST
+        final CompositeQuickFixVisitor visitor = new CompositeQuickFixVisitor();
         for (int i = 0; i < offsets.size(); i++) {
             final int offset = offsets.get(i).intValue();
             final BaseQuickFix quickFix = getQuickFix(sourceNames.get(i));
             if (quickFix != null) {
                 final IRegion lineInfo = document.getLineInformationOfOffset(offset);
-                astRoot.accept(quickFix.getCorrectingASTVisitor(lineInfo, offset));
+                visitor.add(quickFix.getCorrectingASTVisitor(lineInfo, offset), lineInfo);
             }
         }
+        astRoot.accept(visitor);
 
-        final TextEdit edit = astRoot.rewrite(document, null);
-        return EditUtils.convertToWorkspaceEdit(unit, edit);
+        return astRoot.rewrite(document, null);
     }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.runner;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.PreferenceChangeEvent;
+import org.eclipse.jdt.ls.core.internal.JDTUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the charsets the files are checked with, so a batch spreading over projects with different encodings
+ * is checked in groups of files sharing a charset. Files rarely have a charset of their own or a byte order mark,
+ * they inherit the default charset of their folder or project, which is cached per container until an encoding
+ * changes, either on a resource or in the workspace preferences.
+ */
+@SuppressWarnings("restriction")
+public class CharsetResolver implements IResourceChangeListener, IPreferenceChangeListener {
+
+    // Used for the files outside of the workspace
+    private static final String DEFAULT_CHARSET = "utf8";
+    // Project encodings are stored there, it may be edited outside of the workspace, e.g. by a branch switch
+    private static final String PREFERENCES_FILE = ResourcesPlugin.PI_RESOURCES + ".prefs";
+
+    private final Map<IContainer, String> containerCharsets = new ConcurrentHashMap<>();
+
+    /**
+     * Groups the files by charset, keeping the order of the files within each group.
+     */
+    public Map<String, List<File>> groupByCharset(List<File> files) throws CoreException {
+        final Map<String, List<File>> filesByCharset = new LinkedHashMap<>();
+        for (final File file : files) {
+            filesByCharset.computeIfAbsent(getCharset(file), key -> new ArrayList<>()).add(file);
+        }
+        return filesByCharset;
+    }
+
+    /**
+     * Groups the contents held in memory by the charset of their files, keeping their order within each group.
+     */
+    public Map<String, Map<String, String>> groupContentsByCharset(Map<String, String> contents) throws CoreException {
+        final Map<String, Map<String, String>> contentsByCharset = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> content : contents.entrySet()) {
+            contentsByCharset.computeIfAbsent(getCharset(new File(content.getKey())), key -> new LinkedHashMap<>())
+                .put(content.getKey(), content.getValue());
+        }
+        return contentsByCharset;
+    }
+
+    private String getCharset(File file) throws CoreException {
+        final IFile resource = JDTUtils.findFile(file.toURI().toString());
+        return resource != null ? getCharset(resource) : DEFAULT_CHARSET;
+    }
+
+    public String getCharset(IFile file) throws CoreException {
+        // Same resolution as IFile.getCharset(true), with the inherited default charset cached
+        final String charset = file.getCharset(false); // Only the charset set on the file itself
+        if (charset != null) {
+            return charset;
+        }
+        final String detectedCharset = getDetectedCharset(file);
+        if (detectedCharset != null) {
+            return detectedCharset;
+        }
+        final IContainer container = file.getParent();
+        String containerCharset = containerCharsets.get(container);
+        if (containerCharset == null) {
+            containerCharset = container.getDefaultCharset();
+            containerCharsets.put(container, containerCharset);
+        }
+        return containerCharset;
+    }
+
+    private static String getDetectedCharset(IFile file) {
+        try {
+            // Cached by the workspace until the file changes, e.g. holds the charset of a byte order mark
+            final IContentDescription description = file.getContentDescription();
+            return description != null ? description.getCharset() : null;
+        } catch (CoreException e) { // Deleted or out of sync, the checker reports the files it cannot read
+            return null;
+        }
+    }
+
+    @Override
+    public void preferenceChange(PreferenceChangeEvent event) {
+        if (ResourcesPlugin.PREF_ENCODING.equals(event.getKey())) { // Inherited by the projects without an encoding
+            containerCharsets.clear();
+        }
+    }
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+        if (containerCharsets.isEmpty() || event.getDelta() == null) {
+            return;
+        }
+        try {
+            event.getDelta().accept(delta -> {
+                final boolean removedContainer = delta.getKind() == IResourceDelta.REMOVED &&
+                    delta.getResource().getType() != IResource.FILE;
+                final boolean preferencesChanged = delta.getResource().getType() == IResource.FILE &&
+                    PREFERENCES_FILE.equals(delta.getResource().getName());
+                if ((delta.getFlags() & IResourceDelta.ENCODING) != 0 || removedContainer || preferencesChanged) {
+                    // Containers inherit the encoding of their parent, forget them all
+                    containerCharsets.clear();
+                }
+                return !containerCharsets.isEmpty();
+            });
+        } catch (CoreException e) {
+            containerCharsets.clear();
+        }
+    }
+}
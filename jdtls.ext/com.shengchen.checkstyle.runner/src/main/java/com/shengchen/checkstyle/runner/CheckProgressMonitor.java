@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.runner;
+
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+public class CheckProgressMonitor implements ICheckProgressMonitor {
+
+    private final IProgressMonitor monitor;
+
+    public CheckProgressMonitor(IProgressMonitor monitor, int totalFiles) {
+        this.monitor = monitor != null ? monitor : new NullProgressMonitor();
+        this.monitor.beginTask("Checking with Checkstyle", totalFiles);
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return monitor.isCanceled();
+    }
+
+    @Override
+    public synchronized void fileChecked(String fileName) { // Files may be reported from several checker threads
+        monitor.subTask(fileName);
+        monitor.worked(1);
+    }
+
+    public synchronized void done() {
+        monitor.done();
+    }
+}
@@ -27,35 +27,121 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CheckstyleLoader {
 
     static String checkerClass = "com.shengchen.checkstyle.checker.CheckerService";
 
-    URLClassLoader checkerClassLoader = null;
+    // Number of Checkstyle versions kept loaded to switch back to them without reloading the classes
+    private static final int MAX_LOADED_SERVICES = 3;
+    private static final long IDLE_EVICTION_MILLIS = 30 * 60 * 1000;
 
+    // Keyed by the Checkstyle jar and the module jars, in access order for LRU
+    private final Map<List<String>, LoadedService> loadedServices = new LinkedHashMap<>(16, 0.75f, true);
+    // The service returned last, in use until another one is loaded
+    private LoadedService activeService = null;
+
+    /**
+     * Gets an initialized checker service for the given Checkstyle jar and module jars. A recently used
+     * service is returned as is, otherwise a new class loader is created. Services which are idle for
+     * too long since another one replaced them, or exceed the number of loaded services, are disposed
+     * along with their class loader.
+     */
     public ICheckerService loadCheckerService(String checkstyleJarPath, List<String> modulejarPaths) throws Exception {
-        if (checkerClassLoader != null) {
-            checkerClassLoader.close();
+        final List<String> key = new ArrayList<>();
+        key.add(checkstyleJarPath);
+        key.addAll(modulejarPaths);
+        LoadedService loaded = loadedServices.get(key);
+        if (loaded == null) {
+            final ArrayList<URL> jarUrls = new ArrayList<>();
+            jarUrls.add(Paths.get(getServerDir(), "com.shengchen.checkstyle.checker.jar").toUri().toURL());
+            jarUrls.add(Paths.get(checkstyleJarPath).toUri().toURL());
+            for (final String module: modulejarPaths) {
+                jarUrls.add(Paths.get(module).toUri().toURL());
+            }
+            final URLClassLoader classLoader = new URLClassLoader(
+                jarUrls.toArray(new URL[0]),
+                getClass().getClassLoader()
+            );
+            try {
+                final Constructor<?> constructor = classLoader.loadClass(checkerClass).getConstructor();
+                final ICheckerService service = (ICheckerService) constructor.newInstance();
+                service.initialize();
+                loaded = new LoadedService(classLoader, service);
+            } catch (Exception e) {
+                classLoader.close();
+                throw e;
+            }
+            loadedServices.put(key, loaded);
+        }
+        if (activeService != null && activeService != loaded) { // Idle from now on
+            activeService.idleSince = System.currentTimeMillis();
         }
-        final ArrayList<URL> jarUrls = new ArrayList<>();
-        jarUrls.add(Paths.get(getServerDir(), "com.shengchen.checkstyle.checker.jar").toUri().toURL());
-        jarUrls.add(Paths.get(checkstyleJarPath).toUri().toURL());
-        for (final String module: modulejarPaths) {
-            jarUrls.add(Paths.get(module).toUri().toURL());
+        activeService = loaded;
+        evict();
+        return loaded.service;
+    }
+
+    /**
+     * Disposes the service and closes its class loader, e.g. when it failed to be configured.
+     */
+    public void unloadCheckerService(ICheckerService service) throws Exception {
+        final Iterator<LoadedService> iterator = loadedServices.values().iterator();
+        while (iterator.hasNext()) {
+            final LoadedService loaded = iterator.next();
+            if (loaded.service == service) {
+                iterator.remove();
+                if (loaded == activeService) {
+                    activeService = null;
+                }
+                loaded.dispose();
+                return;
+            }
         }
-        checkerClassLoader = new URLClassLoader(jarUrls.toArray(new URL[0]), getClass().getClassLoader());
-        final Constructor<?> constructor = checkerClassLoader.loadClass(checkerClass).getConstructor();
-        return (ICheckerService) constructor.newInstance();
     }
 
     public IQuickFixService loadQuickFixService() {
         return new QuickFixService();
     }
 
+    private void evict() throws Exception {
+        final long now = System.currentTimeMillis();
+        final Iterator<LoadedService> iterator = loadedServices.values().iterator();
+        while (iterator.hasNext()) { // From the least recently used, the last one is the service just returned
+            final LoadedService loaded = iterator.next();
+            if (iterator.hasNext() &&
+                    (loadedServices.size() > MAX_LOADED_SERVICES || now - loaded.idleSince > IDLE_EVICTION_MILLIS)) {
+                iterator.remove();
+                loaded.dispose();
+            }
+        }
+    }
+
     private String getServerDir() throws Exception {
         final File jarFile = new File(getClass().getProtectionDomain().getCodeSource().getLocation().getFile());
         return jarFile.getParentFile().getCanonicalPath();
     }
+
+    private static final class LoadedService {
+        private final URLClassLoader classLoader;
+        private final ICheckerService service;
+        private long idleSince; // When another service replaced it, only read once it is not the active one
+
+        LoadedService(URLClassLoader classLoader, ICheckerService service) {
+            this.classLoader = classLoader;
+            this.service = service;
+        }
+
+        void dispose() throws Exception {
+            try {
+                service.dispose();
+            } finally {
+                classLoader.close();
+            }
+        }
+    }
 }
@@ -17,6 +17,7 @@
 
 package com.shengchen.checkstyle.runner;
 
+import org.eclipse.core.runtime.Platform;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 
@@ -34,4 +35,8 @@ public class CheckstylePlugin implements BundleActivator {
     public void stop(BundleContext context) throws Exception {
     }
 
+    public static String getStateLocation() {
+        return Platform.getStateLocation(context.getBundle()).toOSString();
+    }
+
 }
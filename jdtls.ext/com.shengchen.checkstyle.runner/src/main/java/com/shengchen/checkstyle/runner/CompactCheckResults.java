@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.runner;
+
+import com.shengchen.checkstyle.runner.api.CheckResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact wire form of check results. Messages, check names and severities are stored once in a string
+ * table, and the results of each file are stored as columns of indexes into it. The open files which could
+ * not be checked from a working copy are listed, for the client to send their contents.
+ */
+public class CompactCheckResults {
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, FileResults> files = new HashMap<>();
+    private final List<String> missingWorkingCopies = new ArrayList<>();
+    private final transient Map<String, Integer> stringIds = new HashMap<>();
+
+    public static CompactCheckResults encode(
+        Map<String, List<CheckResult>> results,
+        List<String> missingWorkingCopies
+    ) {
+        final CompactCheckResults compact = new CompactCheckResults();
+        compact.missingWorkingCopies.addAll(missingWorkingCopies);
+        for (final Map.Entry<String, List<CheckResult>> entry : results.entrySet()) {
+            if (entry.getValue() != null) { // Files which were not audited have no diagnostics to show
+                compact.files.put(entry.getKey(), compact.encodeFile(entry.getValue()));
+            }
+        }
+        return compact;
+    }
+
+    private FileResults encodeFile(List<CheckResult> results) {
+        final FileResults fileResults = new FileResults(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            final CheckResult result = results.get(i);
+            fileResults.lines[i] = result.getLine();
+            fileResults.columns[i] = result.getColumn();
+            fileResults.messages[i] = getStringId(result.getMsg());
+            fileResults.sources[i] = getStringId(result.getSourceName());
+            fileResults.severities[i] = getStringId(result.getSeverity());
+        }
+        return fileResults;
+    }
+
+    private int getStringId(String value) {
+        return stringIds.computeIfAbsent(value, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    private static final class FileResults {
+        private final int[] lines;
+        private final int[] columns;
+        private final int[] messages;
+        private final int[] sources;
+        private final int[] severities;
+
+        FileResults(int size) {
+            lines = new int[size];
+            columns = new int[size];
+            messages = new int[size];
+            sources = new int[size];
+            severities = new int[size];
+        }
+    }
+}
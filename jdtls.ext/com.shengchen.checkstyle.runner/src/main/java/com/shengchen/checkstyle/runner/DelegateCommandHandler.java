@@ -18,35 +18,83 @@
 package com.shengchen.checkstyle.runner;
 
 import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
 import com.shengchen.checkstyle.runner.api.ICheckerService;
 import com.shengchen.checkstyle.runner.api.IQuickFixService;
+import com.shengchen.checkstyle.runner.api.ModuleProfile;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.ls.core.internal.IDelegateCommandHandler;
 import org.eclipse.jdt.ls.core.internal.JDTUtils;
+import org.eclipse.jdt.ls.core.internal.JavaLanguageServerPlugin;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.lsp4j.WorkspaceEdit;
 
 import java.io.File;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("restriction")
 public class DelegateCommandHandler implements IDelegateCommandHandler {
 
     private static final String CHECKSTYLE_PREFIX = "java.checkstyle.server.";
+    private static final String PUBLISH_RESULTS_COMMAND = "java.checkstyle.publishResults";
+    private static final String RESTORE_RESULTS_COMMAND = "java.checkstyle.restoreResults";
+    private static final String SET_CONFIGURATION_COMMAND = "setConfiguration";
+    private static final Set<String> QUICK_FIX_COMMANDS = Set.of("quickFix", "batchQuickFix");
+    // Number of restored files checked again while holding the service, mostly served from the result cache
+    private static final int RESTORE_CHUNK_SIZE = 256;
 
     private CheckstyleLoader checkstyleLoader = new CheckstyleLoader();
     private ICheckerService checkerService = null;
-    private IQuickFixService quickfixService = null;
+    private volatile IQuickFixService quickfixService = null;
+    private volatile boolean precomputeQuickFixes = false;
+    private Job restoreJob = null;
+    private Job warmUpJob = null;
+
+    // Commands share the checker service, only setConfiguration swaps it exclusively
+    private final ReadWriteLock serviceLock = new ReentrantReadWriteLock();
+    private final CharsetResolver charsetResolver = new CharsetResolver();
+    private final WorkspaceAuditScheduler auditScheduler = new WorkspaceAuditScheduler(
+        () -> checkerService,
+        serviceLock.readLock(),
+        charsetResolver,
+        results -> publishResults(RESTORE_RESULTS_COMMAND, results)
+    );
+    private final ResourceChangeChecker changeChecker = new ResourceChangeChecker(
+        () -> checkerService,
+        serviceLock.readLock(),
+        charsetResolver,
+        results -> publishResults(RESTORE_RESULTS_COMMAND, results),
+        auditScheduler::isForegroundCheckRunning
+    );
+    private volatile boolean auditWorkspace = false;
+    private boolean listeningToCharsets = false;
 
     @Override
-    public synchronized Object executeCommand(
+    public Object executeCommand(
         String commandId,
         List<Object> arguments,
         IProgressMonitor monitor
@@ -55,33 +103,80 @@ public class DelegateCommandHandler implements IDelegateCommandHandler {
             final String command = commandId.substring(CHECKSTYLE_PREFIX.length()); // Remove prefix as handler name
             for (final Method handler : this.getClass().getDeclaredMethods()) {
                 if (handler.getName().equals(command)) { // Dispatch to CheckStyleRunner's corresponding handler
-                    return handler.invoke(this, arguments.toArray());
+                    if (QUICK_FIX_COMMANDS.contains(command)) { // Quick fixes never touch the checker service
+                        return invokeHandler(handler, arguments, monitor);
+                    }
+                    if (command.equals(SET_CONFIGURATION_COMMAND)) { // Let the background jobs release the service
+                        cancelWarmUp();
+                        cancelRestoreResults();
+                        auditScheduler.stop();
+                    }
+                    final Lock lock = command.equals(SET_CONFIGURATION_COMMAND) ?
+                        serviceLock.writeLock() : serviceLock.readLock();
+                    auditScheduler.foregroundCheckStarted(); // The workspace audit gives way to the client
+                    lock.lock();
+                    try {
+                        return invokeHandler(handler, arguments, monitor);
+                    } finally {
+                        lock.unlock();
+                        auditScheduler.foregroundCheckFinished();
+                    }
                 }
             }
         }
         return null;
     }
 
+    private Object invokeHandler(Method handler, List<Object> arguments, IProgressMonitor monitor) throws Exception {
+        final Class<?>[] parameterTypes = handler.getParameterTypes();
+        if (parameterTypes.length == arguments.size() + 1 &&
+                parameterTypes[arguments.size()] == IProgressMonitor.class) {
+            final List<Object> handlerArguments = new ArrayList<>(arguments);
+            handlerArguments.add(monitor); // Long running handlers take the monitor as last parameter
+            return handler.invoke(this, handlerArguments.toArray());
+        }
+        return handler.invoke(this, arguments.toArray());
+    }
+
     @SuppressWarnings("unchecked")
     protected void setConfiguration(Map<String, Object> config) throws Throwable {
         final String jarStorage = (String) config.get("jarStorage");
         final String version = (String) config.get("version");
         final String jarPath = String.format("%s/checkstyle-%s-all.jar", jarStorage, version);
         final List<String> modules = (List<String>) config.get("modules");
-        if (checkerService != null) {
-            checkerService.dispose();
-        }
-        if (!version.equals(getVersion())) { // If not equal, load new version
-            checkerService = checkstyleLoader.loadCheckerService(jarPath, modules);
-        }
+        config.put("storagePath", CheckstylePlugin.getStateLocation());
+        precomputeQuickFixes = Boolean.TRUE.equals(config.get("precomputeQuickFixes"));
+        auditWorkspace = Boolean.TRUE.equals(config.get("auditWorkspace"));
+        final boolean warmUp = Boolean.TRUE.equals(config.get("warmUp"));
+        final boolean checkChangedFiles = Boolean.TRUE.equals(config.get("checkChangedFiles"));
+        // Recently used versions are kept loaded, so switching back to them does not reload the classes
+        checkerService = checkstyleLoader.loadCheckerService(jarPath, modules);
         try {
-            checkerService.initialize();
+            // The service reuses the checkers it already configured when the configuration did not change
             checkerService.setConfiguration(config);
         } catch (Throwable throwable) { // Initialization faild
-            checkerService.dispose(); // Unwind what's already initialized
+            checkstyleLoader.unloadCheckerService(checkerService); // Unwind what's already initialized
             checkerService = null;    // Remove checkerService
             throw throwable;          // Resend the exception or error out
         }
+        if (warmUp) {
+            scheduleWarmUp(checkerService);
+        }
+        restoreResults(checkerService);
+        if (!listeningToCharsets) {
+            ResourcesPlugin.getWorkspace().addResourceChangeListener(charsetResolver, IResourceChangeEvent.POST_CHANGE);
+            InstanceScope.INSTANCE.getNode(ResourcesPlugin.PI_RESOURCES).addPreferenceChangeListener(charsetResolver);
+            listeningToCharsets = true;
+        }
+        if (checkChangedFiles) { // Opt-in, and only while the client checks automatically
+            ResourcesPlugin.getWorkspace().addResourceChangeListener(changeChecker, IResourceChangeEvent.POST_CHANGE);
+        } else {
+            ResourcesPlugin.getWorkspace().removeResourceChangeListener(changeChecker);
+            changeChecker.stop();
+        }
+        if (auditWorkspace) { // Runs after the restored results are revalidated
+            auditScheduler.start();
+        }
     }
 
     protected String getVersion() throws Exception {
@@ -91,13 +186,113 @@ public class DelegateCommandHandler implements IDelegateCommandHandler {
         return null;
     }
 
-    protected Map<String, List<CheckResult>> checkCode(List<String> filesToCheckUris) throws Exception {
+    protected Map<String, List<CheckResult>> checkCode(
+        List<String> filesToCheckUris,
+        IProgressMonitor monitor
+    ) throws Exception {
+        return checkFiles(filesToCheckUris, Collections.emptyList(), new ArrayList<>(), monitor);
+    }
+
+    /**
+     * Same as checkCode, with the repeated strings sent only once. The open files are checked from their working
+     * copies, those jdt.ls has no working copy of are not checked but listed in the results, so the client sends
+     * their contents with checkContents.
+     */
+    protected CompactCheckResults checkCodeCompact(
+        List<String> filesToCheckUris,
+        List<String> openFileUris,
+        IProgressMonitor monitor
+    ) throws Exception {
+        final List<String> missingWorkingCopies = new ArrayList<>();
+        final Map<String, List<CheckResult>> results =
+            checkFiles(filesToCheckUris, openFileUris, missingWorkingCopies, monitor);
+        return results != null ? CompactCheckResults.encode(results, missingWorkingCopies) : null;
+    }
+
+    protected CompactCheckResults checkCodeStreaming(
+        List<String> filesToCheckUris,
+        List<String> openFileUris,
+        IProgressMonitor monitor
+    ) throws Exception {
+        final List<String> missingWorkingCopies = new ArrayList<>();
         if (filesToCheckUris.isEmpty() || checkerService == null) {
+            return CompactCheckResults.encode(Collections.emptyMap(), missingWorkingCopies);
+        }
+        final Map<String, String> workingCopies = new LinkedHashMap<>();
+        final List<File> filesToCheck = splitWorkingCopies(
+            filesToCheckUris, openFileUris, workingCopies, new HashMap<>(), missingWorkingCopies);
+        final CheckProgressMonitor progress = new CheckProgressMonitor(monitor, filesToCheckUris.size());
+        try {
+            if (!workingCopies.isEmpty()) {
+                publishResults(PUBLISH_RESULTS_COMMAND, checkContentsByCharset(workingCopies, progress));
+            }
+            // Results are pushed to the client in batches as files finish, nothing is left to return
+            for (final Map.Entry<String, List<File>> group : charsetResolver.groupByCharset(filesToCheck).entrySet()) {
+                checkerService.checkCodeStreaming(
+                    group.getValue(),
+                    group.getKey(),
+                    results -> publishResults(PUBLISH_RESULTS_COMMAND, results),
+                    progress
+                );
+            }
+        } catch (CancellationException e) { // Batches published before the cancellation are kept by the client
+            return null;
+        } finally {
+            progress.done();
+        }
+        return CompactCheckResults.encode(Collections.emptyMap(), missingWorkingCopies);
+    }
+
+    protected Map<String, List<CheckResult>> checkContents(
+        Map<String, String> contents,
+        IProgressMonitor monitor
+    ) throws Exception {
+        if (contents.isEmpty() || checkerService == null) {
             return Collections.emptyMap();
         }
+        final CheckProgressMonitor progress = new CheckProgressMonitor(monitor, contents.size());
+        try {
+            return checkContentsByCharset(contents, progress);
+        } catch (CancellationException e) {
+            return null;
+        } finally {
+            progress.done();
+        }
+    }
+
+    private Map<String, List<CheckResult>> checkContentsByCharset(
+        Map<String, String> contents,
+        CheckProgressMonitor progress
+    ) throws Exception {
+        // The contents are decoded already, the charset of their files is still told to the checks
+        final Map<String, List<CheckResult>> results = new HashMap<>();
+        for (final Map.Entry<String, Map<String, String>> group :
+                charsetResolver.groupContentsByCharset(contents).entrySet()) {
+            results.putAll(checkerService.checkContents(group.getValue(), group.getKey(), progress));
+        }
+        return results;
+    }
+
+    /**
+     * Measures the time spent in each module of the configuration while auditing the given files, the most expensive
+     * modules first. The files are read from disk, and their results are not reported.
+     */
+    protected List<ModuleProfile> profileCode(
+        List<String> filesToCheckUris,
+        IProgressMonitor monitor
+    ) throws Exception {
+        if (filesToCheckUris.isEmpty() || checkerService == null) {
+            return Collections.emptyList();
+        }
         final List<File> filesToCheck = filesToCheckUris.stream().map(File::new).collect(Collectors.toList());
-        final IFile resource = JDTUtils.findFile(filesToCheck.get(0).toURI().toString());
-        return checkerService.checkCode(filesToCheck, resource != null ? resource.getCharset() : "utf8");
+        final CheckProgressMonitor progress = new CheckProgressMonitor(monitor, filesToCheck.size());
+        try {
+            return checkerService.profileCode(charsetResolver.groupByCharset(filesToCheck), progress);
+        } catch (CancellationException e) {
+            return Collections.emptyList();
+        } finally {
+            progress.done();
+        }
     }
 
     protected WorkspaceEdit quickFix(
@@ -105,9 +300,235 @@ public class DelegateCommandHandler implements IDelegateCommandHandler {
         List<Double> offsets,
         List<String> sourceNames
     ) throws JavaModelException, IllegalArgumentException, BadLocationException {
+        return getQuickFixService().quickFix(fileToCheckUri, offsets, sourceNames);
+    }
+
+    protected WorkspaceEdit batchQuickFix(
+        List<String> fileToCheckUris,
+        List<List<Double>> offsets,
+        List<List<String>> sourceNames
+    ) throws JavaModelException, IllegalArgumentException, BadLocationException {
+        return getQuickFixService().batchQuickFix(fileToCheckUris, offsets, sourceNames);
+    }
+
+    /**
+     * Publishes the results cached by the service at once, so the diagnostics of the workspace files are shown
+     * without waiting for them to be checked again. The files are then checked in the background, and the
+     * results of those which changed since they were cached are published again.
+     */
+    private synchronized void restoreResults(ICheckerService service) {
+        cancelRestoreResults();
+        restoreJob = Job.create("Restore Checkstyle results", monitor -> {
+            final Map<String, List<CheckResult>> cached = new HashMap<>();
+            try {
+                for (final Map.Entry<String, List<CheckResult>> entry : service.getCachedResults().entrySet()) {
+                    final File file = new File(entry.getKey());
+                    // Skip the deleted files and the files outside of the workspace
+                    if (file.isFile() && JDTUtils.findFile(file.toURI().toString()) != null) {
+                        cached.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (cached.isEmpty()) {
+                    return;
+                }
+                publishResults(RESTORE_RESULTS_COMMAND, cached);
+
+                revalidateResults(service, cached, monitor);
+            } catch (CancellationException e) {
+                // The revalidation is resumed by the next configuration
+            } catch (CoreException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CoreException(new Status(IStatus.ERROR, CheckstylePlugin.PLUGIN_ID, e.getMessage(), e));
+            }
+        });
+        restoreJob.setSystem(true);
+        restoreJob.setPriority(Job.DECORATE);
+        restoreJob.setRule(WorkspaceAuditScheduler.BACKGROUND_RULE);
+        restoreJob.schedule();
+    }
+
+    /**
+     * Checks the files whose results were restored again, in chunks so the service is not held for the whole
+     * workspace, and publishes the results which changed since they were cached.
+     */
+    private void revalidateResults(
+        ICheckerService service,
+        Map<String, List<CheckResult>> cached,
+        IProgressMonitor monitor
+    ) throws Exception {
+        final List<File> filesToCheck = cached.keySet().stream().map(File::new).collect(Collectors.toList());
+        final Map<String, List<File>> filesByCharset = charsetResolver.groupByCharset(filesToCheck);
+        final CheckProgressMonitor progress = new CheckProgressMonitor(monitor, filesToCheck.size());
+        try {
+            for (final Map.Entry<String, List<File>> group : filesByCharset.entrySet()) {
+                final List<File> files = group.getValue();
+                for (int i = 0; i < files.size(); i += RESTORE_CHUNK_SIZE) {
+                    if (monitor.isCanceled()) {
+                        return;
+                    }
+                    final Map<String, List<CheckResult>> checked;
+                    final Lock lock = serviceLock.readLock();
+                    lock.lock(); // Released between chunks, a new configuration does not wait for the whole workspace
+                    try {
+                        if (service != checkerService) { // Replaced by a newer configuration in the meantime
+                            return;
+                        }
+                        final List<File> chunk = files.subList(i, Math.min(i + RESTORE_CHUNK_SIZE, files.size()));
+                        checked = service.checkCode(chunk, group.getKey(), progress);
+                    } finally {
+                        lock.unlock();
+                    }
+                    final Map<String, List<CheckResult>> changed = new HashMap<>();
+                    checked.forEach((fileName, results) -> {
+                        if (results != cached.get(fileName)) { // Unchanged files return the cached lists
+                            changed.put(fileName, results);
+                        }
+                    });
+                    if (!changed.isEmpty()) {
+                        publishResults(RESTORE_RESULTS_COMMAND, changed);
+                    }
+                }
+            }
+        } finally {
+            progress.done();
+        }
+    }
+
+    /**
+     * Warms up the checker of the service in the background, so the first check of the client does not pay for
+     * loading the classes of the checks and running them interpreted. The warm-up gives way to the client checks.
+     */
+    private synchronized void scheduleWarmUp(ICheckerService service) {
+        cancelWarmUp();
+        warmUpJob = Job.create("Warm up Checkstyle", monitor -> {
+            final Lock lock = serviceLock.readLock();
+            lock.lock();
+            try {
+                if (service != checkerService) { // Replaced by a newer configuration in the meantime
+                    return;
+                }
+                service.warmUp(new ICheckProgressMonitor() {
+                    @Override
+                    public boolean isCanceled() {
+                        return monitor.isCanceled() || auditScheduler.isForegroundCheckRunning();
+                    }
+
+                    @Override
+                    public void fileChecked(String fileName) {
+                        // The warm-up is not reported
+                    }
+                });
+            } catch (CancellationException e) {
+                // A check of the client warms up the checker as well, the warm-up is retried by the next configuration
+            } catch (Exception e) {
+                throw new CoreException(new Status(IStatus.ERROR, CheckstylePlugin.PLUGIN_ID, e.getMessage(), e));
+            } finally {
+                lock.unlock();
+            }
+        });
+        warmUpJob.setSystem(true);
+        warmUpJob.setPriority(Job.LONG); // Runs before the deferred background jobs, behind the interactive ones
+        warmUpJob.schedule();
+    }
+
+    private synchronized void cancelWarmUp() {
+        if (warmUpJob != null) {
+            warmUpJob.cancel();
+            warmUpJob = null;
+        }
+    }
+
+    private synchronized void cancelRestoreResults() {
+        if (restoreJob != null) {
+            restoreJob.cancel();
+            restoreJob = null;
+        }
+    }
+
+    private void publishResults(String command, Map<String, List<CheckResult>> results) {
+        JavaLanguageServerPlugin.getInstance().getClientConnection().executeClientCommand(command, results);
+    }
+
+    private IQuickFixService getQuickFixService() {
         if (quickfixService == null) {
-            quickfixService = checkstyleLoader.loadQuickFixService();
+            synchronized (this) { // Quick fixes may be requested concurrently
+                if (quickfixService == null) {
+                    quickfixService = checkstyleLoader.loadQuickFixService();
+                }
+            }
+        }
+        return quickfixService;
+    }
+
+    private Map<String, List<CheckResult>> checkFiles(
+        List<String> filesToCheckUris,
+        List<String> openFileUris,
+        List<String> missingWorkingCopies,
+        IProgressMonitor monitor
+    ) throws Exception {
+        if (filesToCheckUris.isEmpty() || checkerService == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, String> workingCopies = new LinkedHashMap<>();
+        final Map<String, ICompilationUnit> openUnits = new HashMap<>();
+        final List<File> filesToCheck =
+            splitWorkingCopies(filesToCheckUris, openFileUris, workingCopies, openUnits, missingWorkingCopies);
+        final CheckProgressMonitor progress = new CheckProgressMonitor(monitor, filesToCheckUris.size());
+        try {
+            final Map<String, List<CheckResult>> results = new HashMap<>();
+            if (!workingCopies.isEmpty()) { // Open files are audited from their unsaved contents
+                results.putAll(checkContentsByCharset(workingCopies, progress));
+            }
+            // Each group is spread over the checker pool when large enough, the checker is shared otherwise
+            for (final Map.Entry<String, List<File>> group : charsetResolver.groupByCharset(filesToCheck).entrySet()) {
+                results.putAll(checkerService.checkCode(group.getValue(), group.getKey(), progress));
+            }
+            if (precomputeQuickFixes && !openUnits.isEmpty()) { // Only the open files get quick fixes requested
+                final Map<ICompilationUnit, List<CheckResult>> openResults = new LinkedHashMap<>();
+                openUnits.forEach((fileName, unit) -> {
+                    if (results.get(fileName) != null) {
+                        openResults.put(unit, results.get(fileName));
+                    }
+                });
+                getQuickFixService().prepareQuickFix(openResults);
+            }
+            return results;
+        } catch (CancellationException e) { // Results of a canceled check are stale, the client keeps its diagnostics
+            return null;
+        } finally {
+            progress.done();
+        }
+    }
+
+    /**
+     * Splits the files to check between those open in an editor, whose unsaved contents are read from their
+     * working copies and put in the given contents, and those read from the disk, which are returned. The working
+     * copies are put in the given units, by file name. The open files jdt.ls has no working copy of, e.g. outside
+     * of any project, are put in the given missing working copies and not checked.
+     */
+    private List<File> splitWorkingCopies(
+        List<String> filesToCheckUris,
+        List<String> openFileUris,
+        Map<String, String> workingCopies,
+        Map<String, ICompilationUnit> openUnits,
+        List<String> missingWorkingCopies
+    ) throws JavaModelException {
+        final Set<String> openFiles = new HashSet<>(openFileUris);
+        final List<File> filesToCheck = new ArrayList<>();
+        for (final String fileToCheckUri : filesToCheckUris) {
+            final File file = new File(fileToCheckUri);
+            final IFile resource = JDTUtils.findFile(file.toURI().toString());
+            final ICompilationUnit unit = resource != null ? JDTUtils.resolveCompilationUnit(resource) : null;
+            if (unit != null && unit.isWorkingCopy()) { // Holds the unsaved content of the editor
+                workingCopies.put(fileToCheckUri, unit.getSource());
+                openUnits.put(file.getAbsolutePath(), unit);
+            } else if (openFiles.contains(fileToCheckUri)) { // Checked from the content sent by the client
+                missingWorkingCopies.add(fileToCheckUri);
+            } else {
+                filesToCheck.add(file);
+            }
         }
-        return quickfixService.quickFix(fileToCheckUri, offsets, sourceNames);
+        return filesToCheck;
     }
 }
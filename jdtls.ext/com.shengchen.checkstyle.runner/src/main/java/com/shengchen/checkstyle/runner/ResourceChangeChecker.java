@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.runner;
+
+import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
+import com.shengchen.checkstyle.runner.api.ICheckerService;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Checks the Java files changed in the workspace, e.g. by a save, a branch switch or a code generator,
+ * without the client asking for them. The changes are collected from the resource deltas and coalesced
+ * until none came for a short delay, so a burst of changes is checked in a single batch. The open files
+ * are checked by the client from their buffers, and the removed files have their cached results
+ * invalidated and their diagnostics cleared.
+ */
+public class ResourceChangeChecker implements IResourceChangeListener {
+
+    private static final long COALESCE_DELAY_MILLIS = 500;
+    private static final long RESUME_DELAY_MILLIS = 1000;
+
+    private final Supplier<ICheckerService> serviceSupplier;
+    private final Lock serviceLock;
+    private final CharsetResolver charsetResolver;
+    private final Consumer<Map<String, List<CheckResult>>> publisher;
+    private final BooleanSupplier preempted;
+    private final Set<IFile> changedFiles = new LinkedHashSet<>();
+    // Guarded by changedFiles, the check waits until no change came for the coalesce delay
+    private long lastChanged = 0;
+    private final Job job = new CheckJob();
+
+    public ResourceChangeChecker(
+        Supplier<ICheckerService> serviceSupplier,
+        Lock serviceLock,
+        CharsetResolver charsetResolver,
+        Consumer<Map<String, List<CheckResult>>> publisher,
+        BooleanSupplier preempted
+    ) {
+        this.serviceSupplier = serviceSupplier;
+        this.serviceLock = serviceLock;
+        this.charsetResolver = charsetResolver;
+        this.publisher = publisher;
+        this.preempted = preempted;
+    }
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+        final List<IFile> files = new ArrayList<>();
+        try {
+            event.getDelta().accept(delta -> {
+                final IResource resource = delta.getResource();
+                if (resource.getType() != IResource.FILE) {
+                    return true;
+                }
+                if ("java".equals(resource.getFileExtension()) && (delta.getKind() != IResourceDelta.CHANGED ||
+                        (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0)) {
+                    files.add((IFile) resource);
+                }
+                return false;
+            });
+        } catch (CoreException e) {
+            return; // The delta of a closed project, nothing to check
+        }
+        if (!files.isEmpty()) {
+            synchronized (changedFiles) {
+                changedFiles.addAll(files);
+                lastChanged = System.currentTimeMillis();
+            }
+            // Does nothing while the job is waiting, the job then delays itself until the burst is over
+            job.schedule(COALESCE_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Drops the changes not checked yet, e.g. when the client stops checking automatically.
+     */
+    public void stop() {
+        synchronized (changedFiles) {
+            changedFiles.clear();
+        }
+        job.cancel();
+    }
+
+    private final class CheckJob extends Job {
+
+        CheckJob() {
+            super("Check changed files with Checkstyle");
+            setSystem(true);
+            setPriority(Job.DECORATE);
+            setRule(WorkspaceAuditScheduler.BACKGROUND_RULE);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            final List<IFile> files;
+            synchronized (changedFiles) {
+                final long quietMillis = System.currentTimeMillis() - lastChanged;
+                if (quietMillis < COALESCE_DELAY_MILLIS) { // Changes are still coming
+                    schedule(COALESCE_DELAY_MILLIS - quietMillis);
+                    return Status.OK_STATUS;
+                }
+                files = new ArrayList<>(changedFiles);
+                changedFiles.clear();
+            }
+            final Map<String, List<File>> filesByCharset = new LinkedHashMap<>();
+            final List<File> removedFiles = new ArrayList<>();
+            try {
+                for (final IFile file : files) {
+                    if (file.getLocation() == null) {
+                        continue;
+                    }
+                    if (!file.exists()) {
+                        removedFiles.add(file.getLocation().toFile());
+                        continue;
+                    }
+                    final IJavaElement element = JavaCore.create(file);
+                    if (!(element instanceof ICompilationUnit) || !element.getJavaProject().isOnClasspath(element) ||
+                            ((ICompilationUnit) element).isWorkingCopy()) {
+                        continue; // Not a source of a project, or open in an editor
+                    }
+                    filesByCharset.computeIfAbsent(charsetResolver.getCharset(file), charset -> new ArrayList<>())
+                        .add(file.getLocation().toFile());
+                }
+                check(filesByCharset, removedFiles, monitor);
+            } catch (CancellationException e) { // Preempted, the files are checked again on resume
+                synchronized (changedFiles) {
+                    changedFiles.addAll(files);
+                }
+                if (!monitor.isCanceled()) {
+                    schedule(RESUME_DELAY_MILLIS);
+                }
+            } catch (Exception e) {
+                return new Status(IStatus.ERROR, CheckstylePlugin.PLUGIN_ID, e.getMessage(), e);
+            }
+            return Status.OK_STATUS;
+        }
+
+        private void check(
+            Map<String, List<File>> filesByCharset,
+            List<File> removedFiles,
+            IProgressMonitor monitor
+        ) throws Exception {
+            final Map<String, List<CheckResult>> results = new HashMap<>();
+            serviceLock.lock();
+            try {
+                final ICheckerService service = serviceSupplier.get();
+                if (service == null) {
+                    return;
+                }
+                if (!removedFiles.isEmpty()) {
+                    service.invalidateResults(removedFiles);
+                    removedFiles.forEach(file -> results.put(file.getAbsolutePath(), Collections.emptyList()));
+                }
+                for (final Map.Entry<String, List<File>> entry : filesByCharset.entrySet()) {
+                    results.putAll(service.checkCode(entry.getValue(), entry.getKey(), new ICheckProgressMonitor() {
+                        @Override
+                        public boolean isCanceled() {
+                            return monitor.isCanceled() || preempted.getAsBoolean();
+                        }
+
+                        @Override
+                        public void fileChecked(String fileName) {
+                            // The check is not reported
+                        }
+                    }));
+                }
+            } finally {
+                serviceLock.unlock();
+            }
+            if (!results.isEmpty()) {
+                publisher.accept(results);
+            }
+        }
+    }
+}
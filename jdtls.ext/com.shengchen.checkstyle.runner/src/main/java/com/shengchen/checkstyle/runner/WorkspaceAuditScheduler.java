@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.runner;
+
+import com.shengchen.checkstyle.runner.api.CheckResult;
+import com.shengchen.checkstyle.runner.api.ICheckProgressMonitor;
+import com.shengchen.checkstyle.runner.api.ICheckerService;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Audits all the Java files of the workspace in the background, so their diagnostics are known without the
+ * client asking for them. The files in the packages of the open files come first, then the others, the most
+ * recently modified first. The open files themselves are checked by the client from their buffers.
+ * <p>
+ * The audit runs in a single low priority job, in chunks small enough to be audited by the single checker
+ * of the service. A foreground check cancels the chunk being audited, which is audited again once no
+ * foreground check is running anymore.
+ * </p>
+ */
+public class WorkspaceAuditScheduler {
+
+    // Background jobs of the runner run one at a time
+    static final ISchedulingRule BACKGROUND_RULE = new ISchedulingRule() {
+        @Override
+        public boolean contains(ISchedulingRule rule) {
+            return rule == this;
+        }
+
+        @Override
+        public boolean isConflicting(ISchedulingRule rule) {
+            return rule == this;
+        }
+    };
+
+    // Not larger than CheckerPool.CHUNK_SIZE, so a chunk never spreads over the checker pool
+    private static final int CHUNK_SIZE = 16;
+    private static final long RESUME_DELAY_MILLIS = 1000;
+
+    private final Supplier<ICheckerService> serviceSupplier;
+    private final Lock serviceLock;
+    private final CharsetResolver charsetResolver;
+    private final Consumer<Map<String, List<CheckResult>>> publisher;
+    private final AtomicInteger foregroundChecks = new AtomicInteger();
+    private AuditJob job = null;
+
+    public WorkspaceAuditScheduler(
+        Supplier<ICheckerService> serviceSupplier,
+        Lock serviceLock,
+        CharsetResolver charsetResolver,
+        Consumer<Map<String, List<CheckResult>>> publisher
+    ) {
+        this.serviceSupplier = serviceSupplier;
+        this.serviceLock = serviceLock;
+        this.charsetResolver = charsetResolver;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Starts auditing the workspace from scratch, e.g. when the configuration changed.
+     */
+    public synchronized void start() {
+        stop();
+        job = new AuditJob();
+        job.schedule();
+    }
+
+    public synchronized void stop() {
+        if (job != null) {
+            job.cancel();
+            job = null;
+        }
+    }
+
+    /**
+     * Pauses the audit until {@link #foregroundCheckFinished()} is called as many times.
+     */
+    public void foregroundCheckStarted() {
+        foregroundChecks.incrementAndGet();
+    }
+
+    public void foregroundCheckFinished() {
+        foregroundChecks.decrementAndGet();
+    }
+
+    public boolean isForegroundCheckRunning() {
+        return foregroundChecks.get() > 0;
+    }
+
+    private List<FileToAudit> collectFiles() throws CoreException {
+        final Set<IJavaElement> openPackages = new HashSet<>();
+        final Set<ICompilationUnit> openUnits = new HashSet<>();
+        for (final ICompilationUnit workingCopy : JavaCore.getWorkingCopies(null)) {
+            openPackages.add(workingCopy.getParent());
+            openUnits.add(workingCopy.getPrimary());
+        }
+        final List<FileToAudit> files = new ArrayList<>();
+        final IJavaProject[] projects = JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()).getJavaProjects();
+        for (final IJavaProject project : projects) {
+            for (final IPackageFragmentRoot root : project.getPackageFragmentRoots()) {
+                if (root.getKind() != IPackageFragmentRoot.K_SOURCE) {
+                    continue;
+                }
+                for (final IJavaElement child : root.getChildren()) {
+                    final IPackageFragment fragment = (IPackageFragment) child;
+                    for (final ICompilationUnit unit : fragment.getCompilationUnits()) {
+                        final IFile resource = (IFile) unit.getResource();
+                        if (openUnits.contains(unit) || resource == null || resource.getLocation() == null) {
+                            continue;
+                        }
+                        files.add(new FileToAudit(
+                            resource.getLocation().toFile(),
+                            charsetResolver.getCharset(resource),
+                            openPackages.contains(fragment),
+                            resource.getLocalTimeStamp()
+                        ));
+                    }
+                }
+            }
+        }
+        files.sort(Comparator.comparing((FileToAudit file) -> !file.nearOpenFile)
+            .thenComparing(Comparator.comparingLong((FileToAudit file) -> file.lastModified).reversed()));
+        return files;
+    }
+
+    private final class AuditJob extends Job {
+
+        private Deque<FileToAudit> pendingFiles = null;
+
+        AuditJob() {
+            super("Audit workspace with Checkstyle");
+            setSystem(true);
+            setPriority(Job.DECORATE);
+            setRule(BACKGROUND_RULE);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            try {
+                if (pendingFiles == null) {
+                    pendingFiles = new ArrayDeque<>(collectFiles());
+                }
+                while (!pendingFiles.isEmpty()) {
+                    if (monitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
+                    }
+                    if (isForegroundCheckRunning()) { // Leave the checker to the client until it is done
+                        schedule(RESUME_DELAY_MILLIS);
+                        return Status.OK_STATUS;
+                    }
+                    final List<FileToAudit> chunk = nextChunk();
+                    try {
+                        audit(chunk, monitor);
+                    } catch (CancellationException e) { // Preempted, the chunk is audited again on resume
+                        for (int i = chunk.size() - 1; i >= 0; i--) {
+                            pendingFiles.addFirst(chunk.get(i));
+                        }
+                    }
+                }
+                return Status.OK_STATUS;
+            } catch (Exception e) {
+                return new Status(IStatus.ERROR, CheckstylePlugin.PLUGIN_ID, e.getMessage(), e);
+            }
+        }
+
+        private List<FileToAudit> nextChunk() {
+            // Files of a chunk are checked with the same charset
+            final List<FileToAudit> chunk = new ArrayList<>();
+            final String charset = pendingFiles.peekFirst().charset;
+            while (chunk.size() < CHUNK_SIZE && !pendingFiles.isEmpty() &&
+                    pendingFiles.peekFirst().charset.equals(charset)) {
+                chunk.add(pendingFiles.pollFirst());
+            }
+            return chunk;
+        }
+
+        private void audit(List<FileToAudit> chunk, IProgressMonitor monitor) throws Exception {
+            final List<File> filesToCheck = new ArrayList<>();
+            for (final FileToAudit file : chunk) {
+                if (file.file.isFile()) {
+                    filesToCheck.add(file.file);
+                }
+            }
+            final Map<String, List<CheckResult>> results;
+            serviceLock.lock();
+            try {
+                final ICheckerService service = serviceSupplier.get();
+                if (service == null || filesToCheck.isEmpty()) {
+                    return;
+                }
+                results = service.checkCode(filesToCheck, chunk.get(0).charset, new ICheckProgressMonitor() {
+                    @Override
+                    public boolean isCanceled() {
+                        return monitor.isCanceled() || isForegroundCheckRunning();
+                    }
+
+                    @Override
+                    public void fileChecked(String fileName) {
+                        // The audit is not reported
+                    }
+                });
+            } finally {
+                serviceLock.unlock();
+            }
+            publisher.accept(results);
+        }
+    }
+
+    private static final class FileToAudit {
+        private final File file;
+        private final String charset;
+        private final boolean nearOpenFile;
+        private final long lastModified;
+
+        FileToAudit(File file, String charset, boolean nearOpenFile, long lastModified) {
+            this.file = file;
+            this.charset = charset;
+            this.nearOpenFile = nearOpenFile;
+            this.lastModified = lastModified;
+        }
+    }
+}
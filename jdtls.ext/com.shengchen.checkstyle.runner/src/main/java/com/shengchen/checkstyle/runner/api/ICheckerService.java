@@ -31,6 +31,34 @@ public interface ICheckerService {
 
     public String getVersion() throws Exception;
 
-    public Map<String, List<CheckResult>> checkCode(List<File> filesToCheck, String charset) throws Exception;
+    public Map<String, List<CheckResult>> checkCode(
+        List<File> filesToCheck,
+        String charset,
+        ICheckProgressMonitor monitor
+    ) throws Exception;
+
+    public void checkCodeStreaming(
+        List<File> filesToCheck,
+        String charset,
+        IResultPublisher publisher,
+        ICheckProgressMonitor monitor
+    ) throws Exception;
+
+    public Map<String, List<CheckResult>> checkContents(
+        Map<String, String> contents,
+        String charset,
+        ICheckProgressMonitor monitor
+    ) throws Exception;
+
+    public Map<String, List<CheckResult>> getCachedResults() throws Exception;
+
+    public void warmUp(ICheckProgressMonitor monitor) throws Exception;
+
+    public List<ModuleProfile> profileCode(
+        Map<String, List<File>> filesByCharset,
+        ICheckProgressMonitor monitor
+    ) throws Exception;
+
+    public void invalidateResults(List<File> files) throws Exception;
 
 }
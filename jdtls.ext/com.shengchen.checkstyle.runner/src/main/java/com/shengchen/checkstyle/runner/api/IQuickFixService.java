@@ -17,11 +17,13 @@
 
 package com.shengchen.checkstyle.runner.api;
 
+import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.lsp4j.WorkspaceEdit;
 
 import java.util.List;
+import java.util.Map;
 
 public interface IQuickFixService {
 
@@ -31,4 +33,12 @@ public interface IQuickFixService {
         List<String> sourceNames
     ) throws JavaModelException, IllegalArgumentException, BadLocationException;
 
+    public void prepareQuickFix(Map<ICompilationUnit, List<CheckResult>> results);
+
+    public WorkspaceEdit batchQuickFix(
+        List<String> fileToCheckUris,
+        List<List<Double>> offsets,
+        List<List<String>> sourceNames
+    ) throws JavaModelException, IllegalArgumentException, BadLocationException;
+
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) jdneo
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.shengchen.checkstyle.runner.api;
+
+public class ModuleProfile {
+    private String moduleName;
+    private double time;
+    private int invocations;
+    private int violations;
+
+    /**
+     * @param moduleName  the name of the module in the configuration
+     * @param time        the cumulative time spent in the module, in milliseconds
+     * @param invocations the number of files the module processed
+     * @param violations  the number of violations the module reported
+     */
+    public ModuleProfile(String moduleName, double time, int invocations, int violations) {
+        this.moduleName = moduleName;
+        this.time = time;
+        this.invocations = invocations;
+        this.violations = violations;
+    }
+
+    public String getModuleName() {
+        return moduleName;
+    }
+
+    public void setModuleName(String moduleName) {
+        this.moduleName = moduleName;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public void setTime(double time) {
+        this.time = time;
+    }
+
+    public int getInvocations() {
+        return invocations;
+    }
+
+    public void setInvocations(int invocations) {
+        this.invocations = invocations;
+    }
+
+    public int getViolations() {
+        return violations;
+    }
+
+    public void setViolations(int violations) {
+        this.violations = violations;
+    }
+
+}
@@ -14,7 +14,7 @@ import { CheckstyleServerCommands } from './constants/commands';
 import { JAVA_CHECKSTYLE_CONFIGURATIONS, JAVA_CHECKSTYLE_VERSION } from './constants/settings';
 import { ICheckstyleConfiguration } from './models';
 import { handleErrors } from './utils/errorUtils';
-import { getCheckstyleConfigurationPath, getCheckstyleExtensionModules, getCheckstyleProperties, getCheckstyleVersionString, getConfiguration, setCheckstyleVersionString } from './utils/settingUtils';
+import { getCheckstyleConfigurationPath, getCheckstyleExtensionModules, getCheckstyleParallelism, getCheckstyleProperties, getCheckstyleVersionString, getConfiguration, isAutoCheckEnabled, isChangedFilesCheckEnabled, isQuickFixPrecomputeEnabled, isWarmUpEnabled, isWorkspaceAuditEnabled, setCheckstyleVersionString } from './utils/settingUtils';
 
 class CheckstyleConfigurationManager implements vscode.Disposable {
 
@@ -109,6 +109,11 @@ class CheckstyleConfigurationManager implements vscode.Disposable {
       path: getCheckstyleConfigurationPath(),
       properties: getCheckstyleProperties(),
       modules: getCheckstyleExtensionModules(),
+      parallelism: getCheckstyleParallelism(),
+      precomputeQuickFixes: isQuickFixPrecomputeEnabled(),
+      auditWorkspace: isWorkspaceAuditEnabled(),
+      warmUp: isWarmUpEnabled(),
+      checkChangedFiles: isChangedFilesCheckEnabled() && isAutoCheckEnabled(),
     };
     if (this.config.version !== this.getBuiltinVersion()) {
       this.jarStorage = this.context.globalStorageUri.fsPath;
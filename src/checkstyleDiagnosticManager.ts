@@ -9,28 +9,37 @@ import { checkstyleDiagnosticCollector } from './checkstyleDiagnosticCollector';
 import { checkstyleStatusBar } from './checkstyleStatusBar';
 import { executeJavaLanguageServerCommand } from './commands/executeJavaLanguageServerCommand';
 import { CheckstyleServerCommands } from './constants/commands';
-import { FileSynchronizer, SyncedFile } from './features/FileSynchronizer';
-import { ICheckstyleResult } from './models';
+import { ICheckstyleCompactResults, ICheckstyleResult } from './models';
 import { handleErrors } from './utils/errorUtils';
+import { decodeCompactResults } from './utils/resultUtils';
 import { isAutoCheckEnabled } from './utils/settingUtils';
 
+const STREAMING_THRESHOLD: number = 100; // Larger batches get their results pushed by the server as files finish
+
+interface IRunningCheck {
+  files: Map<string, vscode.Uri>; // Check path -> real uri
+  checkedFiles: Set<string>; // Check paths whose results were received
+  streaming: boolean; // Whether the server pushes the results as files finish
+  cancellation: vscode.CancellationTokenSource;
+}
+
 class CheckstyleDiagnosticManager implements vscode.Disposable {
 
-  private context: vscode.ExtensionContext;
   private enabled: boolean;
   private listeners: vscode.Disposable[];
-  private pendingDiagnostics: Set<SyncedFile | vscode.Uri>;
-  private syncedFiles: Map<string, SyncedFile>;
-  private synchronizer: FileSynchronizer;
+  private pendingDiagnostics: Map<string, vscode.Uri>; // Check path -> real uri
+  private openDocuments: Map<string, vscode.TextDocument>; // Checked by the server from their working copies
+  private contentFiles: Set<string>; // Open files jdt.ls has no working copy of, their contents are sent instead
+  private runningCheck: IRunningCheck | undefined; // Canceled once a newer batch is sent
   private diagnosticDelayTrigger: () => Promise<void>;
 
-  public initialize(context: vscode.ExtensionContext): void {
-    this.context = context;
+  public initialize(): void {
     this.enabled = false;
     this.listeners = [];
-    this.pendingDiagnostics = new Set();
-    this.syncedFiles = new Map();
-    this.synchronizer = new FileSynchronizer(this.context);
+    this.pendingDiagnostics = new Map();
+    this.openDocuments = new Map();
+    this.contentFiles = new Set();
+    this.runningCheck = undefined;
     this.diagnosticDelayTrigger = _.debounce(this.sendPendingDiagnostics.bind(this), 200);
   }
 
@@ -49,10 +58,8 @@ class CheckstyleDiagnosticManager implements vscode.Disposable {
         listener.dispose();
       }
       this.listeners = [];
-      this.synchronizer.dispose();
-      for (const file of this.syncedFiles.values()) {
-        this.onDidCloseTextDocument(file.textDocument);
-      }
+      this.openDocuments.clear();
+      this.contentFiles.clear();
     }
   }
 
@@ -69,7 +76,7 @@ class CheckstyleDiagnosticManager implements vscode.Disposable {
   public getDiagnostics(uris: vscode.Uri[]): void {
     for (const uri of uris) {
       if (uri.scheme === 'file' && path.extname(uri.fsPath).toLowerCase() === '.java') {
-        this.pendingDiagnostics.add(this.syncedFiles.get(uri.fsPath) || uri);
+        this.pendingDiagnostics.set(uri.fsPath, uri);
       }
     }
     if (uris.length !== 0) {
@@ -77,6 +84,24 @@ class CheckstyleDiagnosticManager implements vscode.Disposable {
     }
   }
 
+  public onDidPublishResults(results: { [file: string]: ICheckstyleResult[] }): void {
+    if (this.runningCheck && this.runningCheck.streaming) {
+      this.addDiagnostics(results, this.runningCheck);
+    }
+  }
+
+  public onDidRestoreResults(results: { [file: string]: ICheckstyleResult[] }): void {
+    if (!this.enabled) {
+      return;
+    }
+    for (const [file, diagnostics] of Object.entries(results)) {
+      if (this.openDocuments.has(file)) {
+        continue; // Open files are checked on their own, their results are fresher
+      }
+      checkstyleDiagnosticCollector.addDiagnostics(vscode.Uri.file(file), diagnostics);
+    }
+  }
+
   public onDidChangeConfiguration(e: vscode.ConfigurationChangeEvent): void {
     if (e.affectsConfiguration('java.checkstyle.autocheck')) {
       if (isAutoCheckEnabled()) {
@@ -93,80 +118,133 @@ class CheckstyleDiagnosticManager implements vscode.Disposable {
     }
 
     const filePath: string = document.uri.fsPath;
-    if (this.syncedFiles.has(filePath)) {
+    if (this.openDocuments.has(filePath)) {
       return;
     }
 
-    const syncedFile: SyncedFile = new SyncedFile(document, this.synchronizer);
-    this.syncedFiles.set(filePath, syncedFile);
-    syncedFile.open();
-    this.requestDiagnostic(syncedFile);
+    this.openDocuments.set(filePath, document);
+    this.requestDiagnostic(document.uri);
   }
 
   private onDidChangeTextDocument(e: vscode.TextDocumentChangeEvent): void {
-    const filePath: string = e.document.uri.fsPath;
-    const syncedFile: SyncedFile | undefined = this.syncedFiles.get(filePath);
-    if (!syncedFile) {
+    if (!this.openDocuments.has(e.document.uri.fsPath)) {
       return;
     }
-    syncedFile.onContentChanged(e);
-    this.requestDiagnostic(syncedFile);
+    this.requestDiagnostic(e.document.uri); // The unsaved content is read by the server from the working copy
   }
 
   private onDidCloseTextDocument(document: vscode.TextDocument): void {
-    const filePath: string = document.uri.fsPath;
-    const syncedFile: SyncedFile | undefined = this.syncedFiles.get(filePath);
-    if (!syncedFile) {
-      return;
-    }
-    this.syncedFiles.delete(filePath);
-    syncedFile.close();
+    this.openDocuments.delete(document.uri.fsPath);
+    this.contentFiles.delete(document.uri.fsPath);
   }
 
-  private requestDiagnostic(file: SyncedFile): void {
-    this.pendingDiagnostics.add(file);
+  private requestDiagnostic(uri: vscode.Uri): void {
+    this.pendingDiagnostics.set(uri.fsPath, uri);
     this.diagnosticDelayTrigger();
   }
 
   private async sendPendingDiagnostics(): Promise<void> {
+    const fileCheckMap: Map<string, vscode.Uri> = new Map(this.pendingDiagnostics); // Check path -> real uri
+    this.pendingDiagnostics.clear(); // Files requested while checking are sent with the next batch
+    if (!this.enabled) {
+      return;
+    }
+
+    const superseded: IRunningCheck | undefined = this.runningCheck;
+    if (superseded) { // Its files which got no results yet are checked again with the newer batch
+      superseded.cancellation.cancel();
+      superseded.files.forEach((uri: vscode.Uri, checkFile: string) => {
+        if (!superseded.checkedFiles.has(checkFile) && !fileCheckMap.has(checkFile)) {
+          fileCheckMap.set(checkFile, uri);
+        }
+      });
+    }
+    const check: IRunningCheck = {
+      files: fileCheckMap,
+      checkedFiles: new Set(),
+      streaming: fileCheckMap.size > STREAMING_THRESHOLD,
+      cancellation: new vscode.CancellationTokenSource(),
+    };
+    this.runningCheck = check;
     try {
-      if (!this.enabled) {
-        return;
+      const filesToCheck: string[] = [];
+      const openFiles: string[] = []; // Checked from their working copies
+      const contents: { [file: string]: string } = {}; // Real path -> unsaved content
+      for (const checkFile of fileCheckMap.keys()) {
+        const document: vscode.TextDocument | undefined = this.openDocuments.get(checkFile);
+        if (document && this.contentFiles.has(checkFile)) {
+          contents[checkFile] = document.getText();
+          continue;
+        }
+        if (document) {
+          openFiles.push(checkFile);
+        }
+        filesToCheck.push(checkFile);
       }
 
-      await this.synchronizer.flush(); // Sync with the file system before sending
-
-      const fileCheckMap: Map<string, vscode.Uri> = new Map(); // Check path -> real uri
-      for (const file of this.pendingDiagnostics.values()) {
-        if (file instanceof SyncedFile) {
-          fileCheckMap.set(file.syncUri.fsPath, file.realUri);
-        } else {
-          fileCheckMap.set(file.fsPath, file);
+      if (filesToCheck.length !== 0) {
+        // Results are pushed by the server as files finish when streaming, repeated messages are only sent once
+        const compactResults: ICheckstyleCompactResults | undefined = await executeJavaLanguageServerCommand<ICheckstyleCompactResults>(
+          check.streaming ? CheckstyleServerCommands.CHECK_CODE_STREAMING : CheckstyleServerCommands.CHECK_CODE_COMPACT,
+          filesToCheck, openFiles, check.cancellation.token,
+        );
+        if (check.cancellation.token.isCancellationRequested) {
+          return; // The diagnostics shown are kept until the newer batch replaces them
+        }
+        if (!compactResults) {
+          checkstyleChannel.appendLine('Unable to get results from Language Server.');
+          return;
+        }
+        this.addDiagnostics(decodeCompactResults(compactResults), check);
+        for (const checkFile of compactResults.missingWorkingCopies) { // E.g. outside of any project
+          const document: vscode.TextDocument | undefined = this.openDocuments.get(checkFile);
+          if (document) {
+            this.contentFiles.add(checkFile);
+            contents[checkFile] = document.getText();
+          }
         }
       }
 
-      fileCheckMap.forEach((uri: vscode.Uri) => checkstyleDiagnosticCollector.delete(uri));
-
-      const results: { [file: string]: ICheckstyleResult[] } | undefined = await executeJavaLanguageServerCommand<{ [file: string]: ICheckstyleResult[] }>(
-        CheckstyleServerCommands.CHECK_CODE, [...fileCheckMap.keys()],
-      );
-      if (!results) {
-        checkstyleChannel.appendLine('Unable to get results from Language Server.');
-        return;
-      }
-      for (const [checkFile, diagnostics] of Object.entries(results)) {
-        const diagnosticUri: vscode.Uri | undefined = fileCheckMap.get(checkFile);
-        if (!diagnosticUri) {
-          checkstyleChannel.appendLine(`Unable to map check file ${checkFile} back to real uri.`);
-          continue;
+      if (Object.keys(contents).length !== 0) {
+        const results: { [file: string]: ICheckstyleResult[] } | undefined = await executeJavaLanguageServerCommand<{ [file: string]: ICheckstyleResult[] }>(
+          CheckstyleServerCommands.CHECK_CONTENTS, contents, check.cancellation.token,
+        );
+        if (check.cancellation.token.isCancellationRequested) {
+          return;
+        }
+        if (!results) {
+          checkstyleChannel.appendLine('Unable to get results from Language Server.');
+          return;
         }
-        checkstyleDiagnosticCollector.addDiagnostics(diagnosticUri, diagnostics);
+        this.addDiagnostics(results, check);
       }
+      fileCheckMap.forEach((uri: vscode.Uri, checkFile: string) => {
+        if (!check.checkedFiles.has(checkFile)) { // Not audited, e.g. excluded or deleted
+          checkstyleDiagnosticCollector.delete(uri);
+        }
+      });
       checkstyleStatusBar.showStatus();
     } catch (error) {
-      handleErrors(error);
+      if (!check.cancellation.token.isCancellationRequested) {
+        handleErrors(error);
+      }
     } finally {
-      this.pendingDiagnostics.clear();
+      if (this.runningCheck === check) {
+        this.runningCheck = undefined;
+      }
+      check.cancellation.dispose();
+    }
+  }
+
+  private addDiagnostics(results: { [file: string]: ICheckstyleResult[] }, check: IRunningCheck): void {
+    for (const [checkFile, diagnostics] of Object.entries(results)) {
+      const diagnosticUri: vscode.Uri | undefined = check.files.get(checkFile);
+      if (!diagnosticUri) {
+        checkstyleChannel.appendLine(`Unable to map check file ${checkFile} back to real uri.`);
+        continue;
+      }
+      checkstyleDiagnosticCollector.addDiagnostics(diagnosticUri, diagnostics);
+      check.checkedFiles.add(checkFile);
     }
   }
 }
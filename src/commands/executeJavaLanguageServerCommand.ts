@@ -4,6 +4,7 @@
 import { commands } from 'vscode';
 import { JavaLanguageServerCommands } from '../constants/commands';
 
+// A CancellationToken passed as the last argument cancels the request to the server
 export function executeJavaLanguageServerCommand<T>(...args: any[]): Thenable<T | undefined> {
   return commands.executeCommand<T>(JavaLanguageServerCommands.EXECUTE_WORKSPACE_COMMAND, ...args);
 }
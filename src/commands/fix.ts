@@ -1,12 +1,14 @@
 // Copyright (c) jdneo. All rights reserved.
 // Licensed under the GNU LGPLv3 license.
 
-import { Uri } from 'vscode';
+import { Diagnostic, TextDocument, Uri, workspace } from 'vscode';
 import * as ls from 'vscode-languageserver-protocol';
 import { checkstyleChannel } from '../checkstyleChannel';
+import { checkstyleDiagnosticCollector } from '../checkstyleDiagnosticCollector';
 import { CheckstyleServerCommands } from '../constants/commands';
 import { applyWorkspaceEdit } from '../utils/editUtils';
 import { handleErrors } from '../utils/errorUtils';
+import { isQuickFixAvailable } from '../utils/quickFixUtils';
 import { executeJavaLanguageServerCommand } from './executeJavaLanguageServerCommand';
 
 export async function fixCheckstyleViolations(uri: Uri, offsets: number[], sourceNames: string[]): Promise<void> {
@@ -22,3 +24,34 @@ export async function fixCheckstyleViolations(uri: Uri, offsets: number[], sourc
     handleErrors(error);
   }
 }
+
+export async function fixAllCheckstyleViolations(): Promise<void> {
+  try {
+    const uris: string[] = [];
+    const offsets: number[][] = [];
+    const sourceNames: string[][] = [];
+    for (const uri of checkstyleDiagnosticCollector.getResourceUris()) {
+      const diagnostics: Diagnostic[] = (checkstyleDiagnosticCollector.diagnostics(uri) || []).filter((diagnostic: Diagnostic) => isQuickFixAvailable(diagnostic.code));
+      if (diagnostics.length === 0) {
+        continue;
+      }
+      const document: TextDocument = await workspace.openTextDocument(uri);
+      uris.push(uri.toString());
+      offsets.push(diagnostics.map((diagnostic: Diagnostic) => document.offsetAt(diagnostic.range.start)));
+      sourceNames.push(diagnostics.map((diagnostic: Diagnostic) => diagnostic.code as string));
+    }
+    if (uris.length === 0) {
+      return;
+    }
+    // All files are fixed by a single request, the server parses them together
+    const workspaceEdit: ls.WorkspaceEdit | undefined = await executeJavaLanguageServerCommand<ls.WorkspaceEdit>(
+      CheckstyleServerCommands.BATCH_QUICK_FIX, uris, offsets, sourceNames);
+    if (!workspaceEdit) {
+      checkstyleChannel.appendLine('Unable to get quick fix items from Language Server.');
+      return;
+    }
+    await applyWorkspaceEdit(workspaceEdit);
+  } catch (error) {
+    handleErrors(error);
+  }
+}
@@ -0,0 +1,51 @@
+// Copyright (c) jdneo. All rights reserved.
+// Licensed under the GNU LGPLv3 license.
+
+import * as fse from 'fs-extra';
+import { ProgressLocation, Uri, window, workspace } from 'vscode';
+import { checkstyleChannel } from '../checkstyleChannel';
+import { CheckstyleServerCommands } from '../constants/commands';
+import { ICheckstyleModuleProfile } from '../models';
+import { handleErrors } from '../utils/errorUtils';
+import { executeJavaLanguageServerCommand } from './executeJavaLanguageServerCommand';
+
+export async function profileCode(uri?: Uri): Promise<void> {
+  if (!uri) { // If not specified, profile on the workspace
+    if (!workspace.workspaceFolders || workspace.workspaceFolders.length === 0) {
+      return;
+    }
+    uri = workspace.workspaceFolders[0].uri;
+  }
+  let filesToProfile: Uri[];
+  if ((await fse.stat(uri.fsPath)).isDirectory()) {
+    filesToProfile = await workspace.findFiles(`${workspace.asRelativePath(uri)}/**/*.java`);
+  } else {
+    filesToProfile = [uri];
+  }
+  try {
+    const profiles: ICheckstyleModuleProfile[] | undefined = await window.withProgress({
+      location: ProgressLocation.Notification,
+      title: `Profiling the Checkstyle modules on ${filesToProfile.length} files...`,
+    }, async () => await executeJavaLanguageServerCommand<ICheckstyleModuleProfile[]>(
+      CheckstyleServerCommands.PROFILE_CODE, filesToProfile.map((file: Uri) => file.fsPath),
+    ));
+    if (!profiles) {
+      checkstyleChannel.appendLine('Unable to get the profile from Language Server.');
+      return;
+    }
+    // Most expensive modules first
+    checkstyleChannel.appendLine(`Profile of the Checkstyle modules on ${filesToProfile.length} files:`);
+    checkstyleChannel.appendLine(`${'Time (ms)'.padStart(12)} ${'Files'.padStart(8)} ${'Violations'.padStart(10)}  Module`);
+    for (const profile of profiles) {
+      checkstyleChannel.appendLine([
+        profile.time.toFixed(1).padStart(12),
+        String(profile.invocations).padStart(8),
+        String(profile.violations).padStart(10),
+        ` ${profile.moduleName}`,
+      ].join(' '));
+    }
+    checkstyleChannel.show();
+  } catch (error) {
+    handleErrors(error);
+  }
+}
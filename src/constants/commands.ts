@@ -10,14 +10,23 @@ export namespace CheckstyleExtensionCommands {
     export const SET_CHECKSTYLE_VERSION: string = 'java.checkstyle.setVersion';
     export const CHECK_CODE_WITH_CHECKSTYLE: string = 'java.checkstyle.checkCode';
     export const FIX_CHECKSTYLE_VIOLATIONS: string = 'java.checkstyle.quickFix';
+    export const FIX_ALL_CHECKSTYLE_VIOLATIONS: string = 'java.checkstyle.fixAll';
     export const OPEN_OUTPUT_CHANNEL: string = 'java.checkstyle.open.output.channel';
+    export const PUBLISH_RESULTS: string = 'java.checkstyle.publishResults';
+    export const RESTORE_RESULTS: string = 'java.checkstyle.restoreResults';
+    export const PROFILE_CODE: string = 'java.checkstyle.profileCode';
 }
 
 export namespace CheckstyleServerCommands {
     export const SET_CONFIGURATION: string = 'java.checkstyle.server.setConfiguration';
     export const GET_VERSION: string = 'java.checkstyle.server.getVersion';
     export const CHECK_CODE: string = 'java.checkstyle.server.checkCode';
+    export const CHECK_CODE_COMPACT: string = 'java.checkstyle.server.checkCodeCompact';
+    export const CHECK_CODE_STREAMING: string = 'java.checkstyle.server.checkCodeStreaming';
+    export const CHECK_CONTENTS: string = 'java.checkstyle.server.checkContents';
+    export const PROFILE_CODE: string = 'java.checkstyle.server.profileCode';
     export const QUICK_FIX: string = 'java.checkstyle.server.quickFix';
+    export const BATCH_QUICK_FIX: string = 'java.checkstyle.server.batchQuickFix';
 }
 
 export namespace VsCodeCommands {
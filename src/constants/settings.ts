@@ -6,9 +6,20 @@ export const JAVA_CHECKSTYLE_CONFIGURATION: string = 'java.checkstyle.configurat
 export const JAVA_CHECKSTYLE_PROPERTIES: string = 'java.checkstyle.properties';
 export const JAVA_CHECKSTYLE_VERSION: string = 'java.checkstyle.version';
 export const JAVA_CHECKSTYLE_MODULES: string = 'java.checkstyle.modules';
+export const JAVA_CHECKSTYLE_PARALLELISM: string = 'java.checkstyle.parallelism';
+export const JAVA_CHECKSTYLE_PRECOMPUTE_QUICK_FIXES: string = 'java.checkstyle.precomputeQuickFixes';
+export const JAVA_CHECKSTYLE_AUDIT_WORKSPACE: string = 'java.checkstyle.auditWorkspace';
+export const JAVA_CHECKSTYLE_WARM_UP: string = 'java.checkstyle.warmUp';
+export const JAVA_CHECKSTYLE_CHECK_CHANGED_FILES: string = 'java.checkstyle.checkChangedFiles';
 export const JAVA_CHECKSTYLE_CONFIGURATIONS: string[] = [
   JAVA_CHECKSTYLE_CONFIGURATION,
   JAVA_CHECKSTYLE_PROPERTIES,
   JAVA_CHECKSTYLE_VERSION,
   JAVA_CHECKSTYLE_MODULES,
+  JAVA_CHECKSTYLE_PARALLELISM,
+  JAVA_CHECKSTYLE_PRECOMPUTE_QUICK_FIXES,
+  JAVA_CHECKSTYLE_AUDIT_WORKSPACE,
+  JAVA_CHECKSTYLE_WARM_UP,
+  JAVA_CHECKSTYLE_CHECK_CHANGED_FILES,
+  JAVA_CHECKSTYLE_AUTOCHECK,
 ];
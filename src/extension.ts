@@ -1,7 +1,7 @@
 // Copyright (c) jdneo. All rights reserved.
 // Licensed under the GNU LGPLv3 license.
 
-import { ConfigurationChangeEvent, Extension, ExtensionContext, extensions, FileSystemWatcher, languages, Uri, workspace } from 'vscode';
+import { commands, ConfigurationChangeEvent, Extension, ExtensionContext, extensions, FileSystemWatcher, languages, Uri, workspace } from 'vscode';
 import { dispose as disposeTelemetryWrapper, initializeFromJsonFile, instrumentOperation, instrumentOperationAsVsCodeCommand } from 'vscode-extension-telemetry-wrapper';
 import { checkstyleChannel } from './checkstyleChannel';
 import { checkstyleConfigurationManager } from './checkstyleConfigurationManager';
@@ -10,9 +10,11 @@ import { checkstyleDiagnosticManager } from './checkstyleDiagnosticManager';
 import { checkstyleStatusBar } from './checkstyleStatusBar';
 import { checkCode } from './commands/check';
 import { setConfiguration } from './commands/config';
-import { fixCheckstyleViolations } from './commands/fix';
+import { fixAllCheckstyleViolations, fixCheckstyleViolations } from './commands/fix';
+import { profileCode } from './commands/profile';
 import { setVersion } from './commands/version';
 import { CheckstyleExtensionCommands } from './constants/commands';
+import { ICheckstyleResult } from './models';
 import { quickFixProvider } from './quickFixProvider';
 
 export async function activate(context: ExtensionContext): Promise<void> {
@@ -27,7 +29,7 @@ export async function deactivate(): Promise<void> {
 async function doActivate(_operationId: string, context: ExtensionContext): Promise<void> {
   await waitForLsReady();
 
-  checkstyleDiagnosticManager.initialize(context);
+  checkstyleDiagnosticManager.initialize();
   await checkstyleConfigurationManager.initialize(context);
 
   workspace.onDidChangeConfiguration((e: ConfigurationChangeEvent) => {
@@ -51,7 +53,11 @@ async function doActivate(_operationId: string, context: ExtensionContext): Prom
     instrumentOperationAsVsCodeCommand(CheckstyleExtensionCommands.SET_CHECKSTYLE_CONFIGURATION, async (uri?: Uri) => await setConfiguration(uri)),
     instrumentOperationAsVsCodeCommand(CheckstyleExtensionCommands.SET_CHECKSTYLE_VERSION, async (version?: string) => await setVersion(version)),
     instrumentOperationAsVsCodeCommand(CheckstyleExtensionCommands.CHECK_CODE_WITH_CHECKSTYLE, async (uri?: Uri) => await checkCode(uri)),
+    instrumentOperationAsVsCodeCommand(CheckstyleExtensionCommands.PROFILE_CODE, async (uri?: Uri) => await profileCode(uri)),
+    commands.registerCommand(CheckstyleExtensionCommands.PUBLISH_RESULTS, (results: { [file: string]: ICheckstyleResult[] }) => checkstyleDiagnosticManager.onDidPublishResults(results)),
+    commands.registerCommand(CheckstyleExtensionCommands.RESTORE_RESULTS, (results: { [file: string]: ICheckstyleResult[] }) => checkstyleDiagnosticManager.onDidRestoreResults(results)),
     instrumentOperationAsVsCodeCommand(CheckstyleExtensionCommands.FIX_CHECKSTYLE_VIOLATIONS, async (uri: Uri, offsets: number[], sourceNames: string[]) => await fixCheckstyleViolations(uri, offsets, sourceNames)),
+    instrumentOperationAsVsCodeCommand(CheckstyleExtensionCommands.FIX_ALL_CHECKSTYLE_VIOLATIONS, async () => await fixAllCheckstyleViolations()),
   );
 }
 
@@ -14,9 +14,35 @@ export interface ICheckstyleResult {
     sourceName: string;
 }
 
+export interface ICheckstyleCompactResults {
+    strings: string[]; // Messages, check names and severities, referenced by index
+    files: { [file: string]: ICheckstyleCompactFileResults };
+    missingWorkingCopies: string[]; // Open files jdt.ls has no working copy of, to be checked from their contents
+}
+
+export interface ICheckstyleCompactFileResults {
+    lines: number[];
+    columns: number[];
+    messages: number[];
+    sources: number[];
+    severities: number[];
+}
+
+export interface ICheckstyleModuleProfile {
+    moduleName: string;
+    time: number; // Cumulative milliseconds
+    invocations: number; // Files processed
+    violations: number;
+}
+
 export interface ICheckstyleConfiguration {
     version: string;
     path: string;
     properties: object;
     modules: string[];
+    parallelism: number;
+    precomputeQuickFixes: boolean;
+    auditWorkspace: boolean;
+    warmUp: boolean;
+    checkChangedFiles: boolean;
 }
@@ -0,0 +1,26 @@
+// Copyright (c) jdneo. All rights reserved.
+// Licensed under the GNU LGPLv3 license.
+
+import { ICheckstyleCompactFileResults, ICheckstyleCompactResults, ICheckstyleResult } from '../models';
+
+export function decodeCompactResults(compact: ICheckstyleCompactResults): { [file: string]: ICheckstyleResult[] } {
+  const results: { [file: string]: ICheckstyleResult[] } = {};
+  for (const [file, fileResults] of Object.entries(compact.files)) {
+    results[file] = decodeFileResults(compact.strings, fileResults);
+  }
+  return results;
+}
+
+function decodeFileResults(strings: string[], fileResults: ICheckstyleCompactFileResults): ICheckstyleResult[] {
+  const results: ICheckstyleResult[] = [];
+  for (let i: number = 0; i < fileResults.lines.length; i++) {
+    results.push({
+      line: fileResults.lines[i],
+      column: fileResults.columns[i],
+      message: strings[fileResults.messages[i]],
+      severity: strings[fileResults.severities[i]] as ICheckstyleResult['severity'],
+      sourceName: strings[fileResults.sources[i]],
+    });
+  }
+  return results;
+}
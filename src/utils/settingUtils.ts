@@ -2,7 +2,7 @@
 // Licensed under the GNU LGPLv3 license.
 
 import { ConfigurationTarget, Uri, window, workspace, WorkspaceConfiguration } from 'vscode';
-import { JAVA_CHECKSTYLE_AUTOCHECK, JAVA_CHECKSTYLE_CONFIGURATION, JAVA_CHECKSTYLE_MODULES, JAVA_CHECKSTYLE_PROPERTIES, JAVA_CHECKSTYLE_VERSION } from '../constants/settings';
+import { JAVA_CHECKSTYLE_AUDIT_WORKSPACE, JAVA_CHECKSTYLE_AUTOCHECK, JAVA_CHECKSTYLE_CHECK_CHANGED_FILES, JAVA_CHECKSTYLE_CONFIGURATION, JAVA_CHECKSTYLE_MODULES, JAVA_CHECKSTYLE_PARALLELISM, JAVA_CHECKSTYLE_PRECOMPUTE_QUICK_FIXES, JAVA_CHECKSTYLE_PROPERTIES, JAVA_CHECKSTYLE_VERSION, JAVA_CHECKSTYLE_WARM_UP } from '../constants/settings';
 import { resolveVariables } from './workspaceUtils';
 
 export function setCheckstyleConfigurationPath(fsPath: string, uri?: Uri): void {
@@ -36,6 +36,26 @@ export function getCheckstyleProperties(uri?: Uri): object {
   return properties;
 }
 
+export function getCheckstyleParallelism(): number {
+  return getConfiguration().get<number>(JAVA_CHECKSTYLE_PARALLELISM, 0);
+}
+
+export function isQuickFixPrecomputeEnabled(): boolean {
+  return getConfiguration().get<boolean>(JAVA_CHECKSTYLE_PRECOMPUTE_QUICK_FIXES, false);
+}
+
+export function isWorkspaceAuditEnabled(): boolean {
+  return getConfiguration().get<boolean>(JAVA_CHECKSTYLE_AUDIT_WORKSPACE, false);
+}
+
+export function isWarmUpEnabled(): boolean {
+  return getConfiguration().get<boolean>(JAVA_CHECKSTYLE_WARM_UP, false);
+}
+
+export function isChangedFilesCheckEnabled(): boolean {
+  return getConfiguration().get<boolean>(JAVA_CHECKSTYLE_CHECK_CHANGED_FILES, false);
+}
+
 export function isAutoCheckEnabled(): boolean {
   return getConfiguration().get<boolean>(JAVA_CHECKSTYLE_AUTOCHECK, true);
 }